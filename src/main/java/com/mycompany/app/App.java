@@ -1,7 +1,10 @@
 package com.mycompany.app;
 
+import com.mycompany.app.commands.BlindFishPerft;
+import com.mycompany.app.commands.BlindFishReplayPgn;
 import com.mycompany.app.commands.BlindFishSetup;
 import com.mycompany.app.commands.BlindFishStart;
+import com.mycompany.app.commands.BlindFishValidateEpd;
 
 import java.util.concurrent.Callable;
 
@@ -15,6 +18,9 @@ import picocli.CommandLine.Command;
     subcommands = {
         BlindFishSetup.class,
         BlindFishStart.class,
+        BlindFishPerft.class,
+        BlindFishValidateEpd.class,
+        BlindFishReplayPgn.class,
     }
 )
 public class App implements Callable<Integer>
@@ -11,8 +11,9 @@ import com.mycompany.app.uci.*;
 
 public class EngineConnector {
     private Process process;
-    private BufferedReader reader;
     private OutputStreamWriter writer;
+    // Filled by a single reader thread per engine, which blocks on the engine output for its whole life
+    private EngineOutput output;
     private final String path;
 
     public EngineConnector(String path) throws IOException {
@@ -22,26 +23,65 @@ public class EngineConnector {
     public boolean start() {
         try {
             this.process = new ProcessBuilder(this.path).redirectErrorStream(true).start();
-            this.reader = new BufferedReader(new InputStreamReader(this.process.getInputStream()));
             this.writer = new OutputStreamWriter(this.process.getOutputStream());
-                        
+            this.output = new EngineOutput();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(this.process.getInputStream()));
+            Thread thread = new Thread(() -> readOutput(reader, this.output), "engine-reader-" + this.process.pid());
+
+            // a reader left waiting on an engine nobody stopped must not keep the application alive
+            thread.setDaemon(true);
+            thread.start();
+
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
+    private static void readOutput(BufferedReader reader, EngineOutput output) {
+        try (reader) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+            }
+        } catch (IOException e) {
+            // the engine is gone, waiting commands learn it from the closed output
+        } finally {
+            output.close();
+        }
+    }
+
     public Optional<String> sendCommand(Command command) throws IOException {
+        // a response which came after its command gave up must not be taken for the response to this one
+        if (command.getClearOutput()) output.clear();
+
         command.send(writer);
 
-        Optional<String> response = command.getResponse(reader);
+        Optional<String> response = command.getResponse(output);
 
         return response;
     }
 
-    public void stop() throws Exception {
-        sendCommand(new Quit());
+    // The process is running and answers isready in time
+    public boolean isHealthy() {
+        if (this.process == null || !this.process.isAlive()) return false;
 
-        this.process.destroy();
+        try {
+            sendCommand(new IsReady());
+
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void stop() throws Exception {
+        try {
+            sendCommand(new Quit());
+        } finally {
+            this.process.destroy();
+        }
     }
 }
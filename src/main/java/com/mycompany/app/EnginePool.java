@@ -0,0 +1,120 @@
+package com.mycompany.app;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.mycompany.app.uci.*;
+
+// Engine processes started and introduced once (uci, isready) and lent to one game at a time. Leasing checks
+// that the engine still answers and starts a new one in place of a dead one, then tells it a new game begins.
+// There are never more engines than cores, each of them searching takes a core
+public class EnginePool implements AutoCloseable {
+    private final String path;
+    private final int size;
+    private final LinkedBlockingQueue<EngineConnector> idle = new LinkedBlockingQueue<>();
+    // Every engine of the pool, idle or leased
+    private final Set<EngineConnector> engines = ConcurrentHashMap.newKeySet();
+    private volatile boolean isClosed;
+
+    public EnginePool(String path, int size) throws IOException {
+        this.path = path;
+        this.size = Math.max(1, Math.min(size, Runtime.getRuntime().availableProcessors()));
+
+        try {
+            for (int i = 0; i < this.size; i++) {
+                this.idle.add(startEngine());
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private EngineConnector startEngine() throws IOException {
+        EngineConnector engineConnector = new EngineConnector(this.path);
+
+        if (!engineConnector.start()) throw new IOException("Cannot start engine " + this.path);
+
+        this.engines.add(engineConnector);
+
+        try {
+            engineConnector.sendCommand(new UCI());
+            engineConnector.sendCommand(new IsReady());
+        } catch (IOException e) {
+            discard(engineConnector);
+            throw e;
+        }
+
+        return engineConnector;
+    }
+
+    private void discard(EngineConnector engineConnector) {
+        this.engines.remove(engineConnector);
+
+        try {
+            engineConnector.stop();
+        } catch (Exception e) {
+            // the process is killed anyway
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // Waits for a free engine at most the given time. An engine which cannot be replaced is lost to the pool
+    public EngineConnector lease(long timeout, TimeUnit unit) throws IOException {
+        if (this.isClosed) throw new IOException("Engine pool is closed");
+
+        EngineConnector engineConnector;
+
+        try {
+            engineConnector = this.idle.poll(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an engine", e);
+        }
+
+        if (engineConnector == null) throw new IOException("No engine free in time");
+
+        if (!engineConnector.isHealthy()) {
+            discard(engineConnector);
+            engineConnector = startEngine();
+        }
+
+        try {
+            engineConnector.sendCommand(new UciNewGame());
+        } catch (IOException e) {
+            discard(engineConnector);
+            throw e;
+        }
+
+        return engineConnector;
+    }
+
+    // Gives a leased engine back, an engine the pool does not know or a closed pool stops it instead
+    public void release(EngineConnector engineConnector) {
+        if (this.isClosed || !this.engines.contains(engineConnector)) {
+            discard(engineConnector);
+            return;
+        }
+
+        this.idle.add(engineConnector);
+
+        // the pool may have been closed in between
+        if (this.isClosed && this.idle.remove(engineConnector)) discard(engineConnector);
+    }
+
+    // Stops idle engines now and leased ones when they are given back
+    @Override
+    public void close() {
+        this.isClosed = true;
+
+        for (EngineConnector engineConnector; (engineConnector = this.idle.poll()) != null; ) {
+            discard(engineConnector);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mycompany.app;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Best moves the engine has already given, by position key, engine level and search limits, so that a position
+// seen before is answered without a round trip to the engine. The cache holds a fixed number of replies and
+// evicts with the CLOCK algorithm: a hit only marks the entry as used, eviction sweeps a ring of entries and
+// takes the first one not used since the last sweep. Lookups take no lock, only inserts do
+public class ReplyCache {
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry[] ring;
+    private int hand;
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ReplyCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity should be at least 1");
+
+        this.ring = new Entry[capacity];
+    }
+
+    public Optional<String> get(long positionKey, int level, String limits) {
+        Entry entry = this.entries.get(new Key(positionKey, level, limits));
+
+        if (entry == null) {
+            this.misses.increment();
+
+            return Optional.empty();
+        }
+
+        entry.isReferenced = true;
+        this.hits.increment();
+
+        return Optional.of(entry.bestMove);
+    }
+
+    public synchronized void put(long positionKey, int level, String limits, String bestMove) {
+        Key key = new Key(positionKey, level, limits);
+        Entry entry = new Entry(key, bestMove);
+
+        Entry previous = this.entries.get(key);
+
+        if (previous != null) {
+            // the slot of the old reply is reused, the ring keeps one slot per key
+            entry.slot = previous.slot;
+            this.ring[entry.slot] = entry;
+            this.entries.put(key, entry);
+
+            return;
+        }
+
+        if (this.size < this.ring.length) {
+            entry.slot = this.size++;
+        } else {
+            while (this.ring[this.hand].isReferenced) {
+                this.ring[this.hand].isReferenced = false;
+                this.hand = (this.hand + 1) % this.ring.length;
+            }
+
+            this.entries.remove(this.ring[this.hand].key);
+            this.evictions.increment();
+
+            entry.slot = this.hand;
+            this.hand = (this.hand + 1) % this.ring.length;
+        }
+
+        this.ring[entry.slot] = entry;
+        this.entries.put(key, entry);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Engine reply cache: " + size() + " replies, " + getHits() + " hits, " + getMisses() + " misses, " + getEvictions() + " evictions";
+    }
+
+    private static final class Key {
+        private final long positionKey;
+        private final int level;
+        private final String limits;
+
+        private Key(long positionKey, int level, String limits) {
+            this.positionKey = positionKey;
+            this.level = level;
+            this.limits = limits;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+
+            Key key = (Key)other;
+
+            return this.positionKey == key.positionKey && this.level == key.level && this.limits.equals(key.limits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.positionKey, this.level, this.limits);
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final String bestMove;
+        private int slot;
+        // Set by every hit, cleared when the clock hand passes
+        private volatile boolean isReferenced;
+
+        private Entry(Key key, String bestMove) {
+            this.key = key;
+            this.bestMove = bestMove;
+        }
+    }
+}
@@ -7,6 +7,10 @@ public class Settings implements Serializable {
 
     private String engine;
     private int level;
+    // Polyglot opening book, null to always ask the engine
+    private String book;
+    // Let the engine think on the user's time
+    private boolean ponder;
 
     public final static String DIR = "generated";
     public final static String FILE = "settings";
@@ -19,6 +23,14 @@ public class Settings implements Serializable {
         this.level = level;
     }
 
+    public void setBook(String book) {
+        this.book = book;
+    }
+
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
     public String getEngine() {
         return this.engine;
     }
@@ -26,4 +38,12 @@ public class Settings implements Serializable {
     public int getLevel() {
         return this.level;
     }
+
+    public String getBook() {
+        return this.book;
+    }
+
+    public boolean getPonder() {
+        return this.ponder;
+    }
 }
@@ -0,0 +1,102 @@
+package com.mycompany.app.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// What the engine found in a position: its best move, the score from the side to move in centipawns
+// or in moves to mate, the depth searched and the principal variation in long algebraic notation
+public final class Analysis {
+    private final String bestMove;
+    private final int score;
+    private final boolean isMate;
+    private final int depth;
+    private final List<String> pv;
+
+    public Analysis(String bestMove, int score, boolean isMate, int depth, List<String> pv) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.isMate = isMate;
+        this.depth = depth;
+        this.pv = Collections.unmodifiableList(new ArrayList<>(pv));
+    }
+
+    // Reads score, depth and variation from the last "info" line the engine sent before its bestmove,
+    // info may be null when the engine was stopped before it reported anything
+    public static Analysis parse(String bestMove, String info) {
+        int score = 0;
+        boolean isMate = false;
+        int depth = 0;
+        List<String> pv = new ArrayList<>();
+
+        String[] words = info == null ? new String[0] : info.trim().split("\\s+");
+
+        for (int i = 0; i < words.length - 1; i++) {
+            try {
+                if (words[i].equals("depth")) {
+                    depth = Integer.parseInt(words[i + 1]);
+                } else if (words[i].equals("score") && i + 2 < words.length) {
+                    isMate = words[i + 1].equals("mate");
+                    score = Integer.parseInt(words[i + 2]);
+                } else if (words[i].equals("pv")) {
+                    for (int j = i + 1; j < words.length; j++) {
+                        pv.add(words[j]);
+                    }
+
+                    break;
+                }
+            } catch (NumberFormatException e) {
+                // a malformed field is left at its default
+            }
+        }
+
+        if (pv.isEmpty() || !pv.get(0).equals(bestMove)) {
+            pv.clear();
+            pv.add(bestMove);
+        }
+
+        return new Analysis(bestMove, score, isMate, depth, pv);
+    }
+
+    public String getBestMove() {
+        return this.bestMove;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public boolean isMate() {
+        return this.isMate;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public List<String> getPv() {
+        return this.pv;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Analysis)) return false;
+
+        Analysis analysis = (Analysis)other;
+
+        return this.bestMove.equals(analysis.bestMove) && this.score == analysis.score && this.isMate == analysis.isMate
+            && this.depth == analysis.depth && this.pv.equals(analysis.pv);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.bestMove, this.score, this.isMate, this.depth, this.pv);
+    }
+
+    @Override
+    public String toString() {
+        return this.bestMove + " (" + (this.isMate ? "mate " : "cp ") + this.score + ", depth " + this.depth + ", pv " + String.join(" ", this.pv) + ")";
+    }
+}
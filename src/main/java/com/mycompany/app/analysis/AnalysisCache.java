@@ -0,0 +1,264 @@
+package com.mycompany.app.analysis;
+
+import com.mycompany.app.chessboard.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Engine analysis kept on disk between runs, by position key. The file is a header followed by an open
+// addressing table of fixed size slots, memory-mapped so that nothing is read or written up front.
+// A position is looked for in a few neighbouring slots and a full neighbourhood gives up its shallowest
+// analysis, never one deeper than the new analysis. Each slot stores the key XOR its other words, like the
+// perft table: a slot half written when the process died no longer matches its key and reads as empty.
+// The header is written and flushed only once the table is in place, a file with a missing or different
+// header, or of another format version, is thrown away and created again
+public final class AnalysisCache implements Closeable {
+    public static final int DEFAULT_SLOTS = 1 << 16;
+
+    // "BFANALYS"
+    private static final long MAGIC = 0x4246414E414C5953L;
+    // 2: promotions are stored with the piece codes of Move
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final int MAX_SLOTS = 1 << 24;
+    private static final int PROBES = 4;
+    // Moves of the variation are 16 bits each, packed four to a word in the last six words of a slot
+    private static final int MAX_PV = 24;
+    // Second word of a slot: bits 0-15 best move, bits 16-23 depth, bit 24 mate score,
+    // bits 25-29 variation length, bit 31 set in used slots, bits 32-63 score
+    private static final long USED = 1L << 31;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final int mask;
+
+    public AnalysisCache(Path path, int slots) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            int size = readHeader();
+
+            if (size == 0) {
+                size = Integer.highestOneBit(Math.max(PROBES, Math.min(MAX_SLOTS, slots)));
+                this.table = create(size);
+            } else {
+                this.table = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(size));
+            }
+
+            this.mask = size - 1;
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private static long fileSize(int slots) {
+        return HEADER_SIZE + (long)slots * SLOT_SIZE;
+    }
+
+    private static long headerCheck(int slots) {
+        return MAGIC ^ (long)VERSION << 32 ^ slots * 0x9E3779B97F4A7C15L;
+    }
+
+    // Number of slots of an existing table, 0 when the file has to be created again
+    private int readHeader() throws IOException {
+        if (this.channel.size() < HEADER_SIZE) return 0;
+
+        MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+        if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || header.getInt(12) != SLOT_SIZE) return 0;
+
+        int slots = header.getInt(16);
+
+        if (header.getLong(24) != headerCheck(slots) || this.channel.size() != fileSize(slots)) return 0;
+
+        return slots;
+    }
+
+    private MappedByteBuffer create(int slots) throws IOException {
+        // truncating first leaves no old slots behind, the file grows back filled with zeros
+        this.channel.truncate(0);
+
+        MappedByteBuffer table = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(slots));
+
+        table.putInt(8, VERSION);
+        table.putInt(12, SLOT_SIZE);
+        table.putInt(16, slots);
+        table.putLong(24, headerCheck(slots));
+        table.force();
+
+        // the magic number goes last, a header without it is never trusted
+        table.putLong(0, MAGIC);
+        table.force();
+
+        return table;
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    public Optional<Analysis> get(long key) {
+        long[] words = new long[SLOT_SIZE / Long.BYTES];
+
+        for (int i = 0; i < PROBES; i++) {
+            int slot = ((int)key + i) & this.mask;
+
+            if (readSlot(slot, words) && words[0] == key) return Optional.of(decode(words));
+        }
+
+        return Optional.empty();
+    }
+
+    // Only an analysis which searched at least the given depth, shallower ones are not good enough to answer
+    public Optional<Analysis> get(long key, int minimumDepth) {
+        return get(key).filter(analysis -> analysis.getDepth() >= minimumDepth);
+    }
+
+    // Keeps the analysis unless a deeper one of the position, or deeper ones of all neighbouring positions,
+    // are already stored. Returns whether it was stored
+    public synchronized boolean put(long key, Analysis analysis) {
+        long[] words = new long[SLOT_SIZE / Long.BYTES];
+
+        if (!encode(key, analysis, words)) return false;
+
+        int target = -1;
+        int targetDepth = Integer.MAX_VALUE;
+        long[] stored = new long[words.length];
+
+        for (int i = 0; i < PROBES; i++) {
+            int slot = ((int)key + i) & this.mask;
+
+            if (!readSlot(slot, stored)) {
+                if (targetDepth >= 0) {
+                    target = slot;
+                    targetDepth = -1;
+                }
+
+                continue;
+            }
+
+            int depth = depth(stored[1]);
+
+            if (stored[0] == key) {
+                target = slot;
+                targetDepth = depth;
+                break;
+            }
+
+            if (depth < targetDepth) {
+                target = slot;
+                targetDepth = depth;
+            }
+        }
+
+        if (targetDepth > analysis.getDepth()) return false;
+
+        writeSlot(target, words);
+
+        return true;
+    }
+
+    // Flushes the table to disk
+    public void flush() {
+        this.table.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        this.channel.close();
+    }
+
+    // Fills the words with the key and data of the slot, returns false for an empty or torn slot
+    private boolean readSlot(int slot, long[] words) {
+        int offset = HEADER_SIZE + slot * SLOT_SIZE;
+        long check = 0;
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] = this.table.getLong(offset + i * Long.BYTES);
+
+            if (i > 0) check ^= words[i];
+        }
+
+        if ((words[1] & USED) == 0) return false;
+
+        words[0] ^= check;
+
+        return true;
+    }
+
+    private void writeSlot(int slot, long[] words) {
+        int offset = HEADER_SIZE + slot * SLOT_SIZE;
+        long check = 0;
+
+        for (int i = 1; i < words.length; i++) {
+            this.table.putLong(offset + i * Long.BYTES, words[i]);
+            check ^= words[i];
+        }
+
+        this.table.putLong(offset, words[0] ^ check);
+    }
+
+    private static int depth(long data) {
+        return (int)(data >>> 16) & 0xFF;
+    }
+
+    private static boolean encode(long key, Analysis analysis, long[] words) {
+        int bestMove = encodeMove(analysis.getBestMove());
+
+        if (bestMove < 0) return false;
+
+        List<String> pv = analysis.getPv();
+        int length = Math.min(MAX_PV, pv.size());
+
+        for (int i = 0; i < length; i++) {
+            int move = encodeMove(pv.get(i));
+
+            // the variation is cut at the first move which cannot be stored
+            if (move < 0) {
+                length = i;
+                break;
+            }
+
+            words[2 + i / 4] |= (long)move << (i % 4 * 16);
+        }
+
+        words[0] = key;
+        words[1] = bestMove | (long)Math.min(255, Math.max(0, analysis.getDepth())) << 16
+            | (analysis.isMate() ? 1L << 24 : 0) | (long)length << 25 | USED | (long)analysis.getScore() << 32;
+
+        return true;
+    }
+
+    private static Analysis decode(long[] words) {
+        long data = words[1];
+        int length = (int)(data >>> 25) & 0x1F;
+        List<String> pv = new ArrayList<>(length);
+
+        for (int i = 0; i < length; i++) {
+            pv.add(decodeMove((int)(words[2 + i / 4] >>> (i % 4 * 16)) & 0xFFFF));
+        }
+
+        return new Analysis(decodeMove((int)data & 0xFFFF), (int)(data >> 32), (data & 1L << 24) != 0, depth(data), pv);
+    }
+
+    // A move packed by Move without its type, bits 0-14, -1 if the text is not a move
+    private static int encodeMove(String move) {
+        int packed = Move.parse(move);
+
+        return packed == Move.NONE ? -1 : packed;
+    }
+
+    private static String decodeMove(int move) {
+        return Move.toString(move & 0x7FFF);
+    }
+}
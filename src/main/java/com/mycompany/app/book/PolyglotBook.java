@@ -0,0 +1,109 @@
+package com.mycompany.app.book;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.PolyglotKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// Opening book in the Polyglot .bin format: 16-byte big-endian entries of position key, move, weight and
+// learning data, sorted by key. The file is memory-mapped and the entries of a position are found with a
+// binary search, nothing is loaded up front. Lookups only read the mapping and can run on any thread
+public final class PolyglotBook {
+    private static final int ENTRY_SIZE = 16;
+    private static final char[] promotions = new char[]{ '\0', 'n', 'b', 'r', 'q' };
+
+    private final ByteBuffer entries;
+    private final int count;
+    private final PolyglotKey polyglotKey;
+
+    public PolyglotBook(Path path, PolyglotKey polyglotKey) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Book " + path + " is larger than 2 GB");
+
+            this.entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        this.count = this.entries.capacity() / ENTRY_SIZE;
+        this.polyglotKey = polyglotKey;
+    }
+
+    // Picks one of the book moves of the position, each with a chance proportional to its weight.
+    // Returns the move in long algebraic notation, or null when the position is not in the book
+    public String pickMove(Chessboard chessboard, Random random) {
+        long key = this.polyglotKey.of(chessboard);
+        int first = firstEntry(key);
+        long totalWeight = 0;
+
+        for (int i = first; i < this.count && keyAt(i) == key; i++) {
+            totalWeight += weightAt(i);
+        }
+
+        // moves with no weight are kept in books only to be avoided
+        if (totalWeight == 0) return null;
+
+        long pick = (long)(random.nextDouble() * totalWeight);
+
+        for (int i = first; ; i++) {
+            pick -= weightAt(i);
+
+            if (pick < 0) return moveAt(i, chessboard);
+        }
+    }
+
+    // Index of the first entry with the key, or of the first greater one
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = this.count;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return this.entries.getLong(index * ENTRY_SIZE);
+    }
+
+    private int weightAt(int index) {
+        return this.entries.getShort(index * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    // Moves are packed as to file, to row, from file, from row and promotion piece, 3 bits each from the lowest.
+    // Castling is written as the king taking its own rook
+    private String moveAt(int index, Chessboard chessboard) {
+        int move = this.entries.getShort(index * ENTRY_SIZE + 8) & 0xFFFF;
+        int toCol = move & 7;
+        int toRow = move >> 3 & 7;
+        int fromCol = move >> 6 & 7;
+        int fromRow = move >> 9 & 7;
+        int promotion = move >> 12 & 7;
+
+        char[][] board = chessboard.getBoard();
+        boolean isKing = Character.toLowerCase(board[fromRow][fromCol]) == 'k';
+
+        if (isKing && fromCol == 4 && fromRow == toRow && (toCol == 7 || toCol == 0)) {
+            toCol = toCol == 7 ? 6 : 2;
+        }
+
+        StringBuilder builder = new StringBuilder(5)
+            .append((char)('a' + fromCol)).append((char)('1' + fromRow))
+            .append((char)('a' + toCol)).append((char)('1' + toRow));
+
+        if (promotion > 0 && promotion < promotions.length) builder.append(promotions[promotion]);
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.mycompany.app.chessboard;
+
+import java.util.Arrays;
+
+// Squares attacked by each side, kept up to date move by move instead of being rebuilt for every query.
+// Every square remembers the attacks of the piece standing on it and every square counts its attackers,
+// so a move only re-evaluates the pieces on the changed squares and the sliders whose rays cross them
+final class AttackMap {
+    private final long[] attacksFrom = new long[64];
+    private final int[] owner = new int[64];
+    private final byte[][] attackers = new byte[2][64];
+    private final long[] attacked = new long[2];
+
+    AttackMap() {
+        Arrays.fill(this.owner, -1);
+    }
+
+    void build(Piece[] squares, long occupied) {
+        Arrays.fill(this.attacksFrom, 0);
+        Arrays.fill(this.owner, -1);
+        Arrays.fill(this.attackers[Chessboard.WHITE], (byte)0);
+        Arrays.fill(this.attackers[Chessboard.BLACK], (byte)0);
+        this.attacked[Chessboard.WHITE] = 0;
+        this.attacked[Chessboard.BLACK] = 0;
+
+        for (long mask = occupied; mask != 0; mask &= mask - 1) {
+            int square = Bitboard.first(mask);
+
+            add(squares[square], square, occupied);
+        }
+    }
+
+    void copyFrom(AttackMap attackMap) {
+        System.arraycopy(attackMap.attacksFrom, 0, this.attacksFrom, 0, this.attacksFrom.length);
+        System.arraycopy(attackMap.owner, 0, this.owner, 0, this.owner.length);
+        System.arraycopy(attackMap.attackers[Chessboard.WHITE], 0, this.attackers[Chessboard.WHITE], 0, 64);
+        System.arraycopy(attackMap.attackers[Chessboard.BLACK], 0, this.attackers[Chessboard.BLACK], 0, 64);
+        this.attacked[Chessboard.WHITE] = attackMap.attacked[Chessboard.WHITE];
+        this.attacked[Chessboard.BLACK] = attackMap.attacked[Chessboard.BLACK];
+    }
+
+    // Brings the map in line with the board after pieces appeared on or left the changed squares.
+    // Called with the same changed squares after a move is taken back, the map is reverted as well
+    void update(Piece[] squares, long occupied, long sliders, long changed) {
+        for (long mask = changed; mask != 0; mask &= mask - 1) {
+            remove(Bitboard.first(mask));
+        }
+
+        for (long mask = sliders & ~changed; mask != 0; mask &= mask - 1) {
+            int square = Bitboard.first(mask);
+
+            if ((this.attacksFrom[square] & changed) != 0) {
+                remove(square);
+                add(squares[square], square, occupied);
+            }
+        }
+
+        for (long mask = changed & occupied; mask != 0; mask &= mask - 1) {
+            int square = Bitboard.first(mask);
+
+            add(squares[square], square, occupied);
+        }
+    }
+
+    boolean isAttacked(int byColor, int square) {
+        return (this.attacked[byColor] & Bitboard.bit(square)) != 0;
+    }
+
+    long attackedBy(int color) {
+        return this.attacked[color];
+    }
+
+    private void add(Piece piece, int square, long occupied) {
+        int color = piece.color();
+        long attacks = Attacks.attacks(piece, square, occupied);
+        byte[] counts = this.attackers[color];
+
+        this.attacksFrom[square] = attacks;
+        this.owner[square] = color;
+
+        for (long mask = attacks; mask != 0; mask &= mask - 1) {
+            int target = Bitboard.first(mask);
+
+            if (counts[target]++ == 0) {
+                this.attacked[color] |= Bitboard.bit(target);
+            }
+        }
+    }
+
+    private void remove(int square) {
+        int color = this.owner[square];
+
+        if (color == -1) return;
+
+        byte[] counts = this.attackers[color];
+
+        for (long mask = this.attacksFrom[square]; mask != 0; mask &= mask - 1) {
+            int target = Bitboard.first(mask);
+
+            if (--counts[target] == 0) {
+                this.attacked[color] &= ~Bitboard.bit(target);
+            }
+        }
+
+        this.attacksFrom[square] = 0;
+        this.owner[square] = -1;
+    }
+}
@@ -0,0 +1,234 @@
+package com.mycompany.app.chessboard;
+
+import java.util.ArrayList;
+
+// Attack tables built once when the class is loaded. Directions are taken from Piece attack patterns,
+// so the tables and the pattern based move validation always agree. Leapers and pawns are a single lookup,
+// sliders use magic bitboards: the relevant blockers are multiplied by a magic number which maps
+// every blocker configuration of a square to its own slot in the attack table
+final class Attacks {
+    private static final long[] knight = new long[64];
+    private static final long[] king = new long[64];
+    private static final long[][] pawn = new long[2][64];
+    private static final long[][] between = new long[64][64];
+    private static final long[][] line = new long[64][64];
+
+    private static final long[] rookMask = new long[64];
+    private static final long[] rookMagic = new long[64];
+    private static final int[] rookShift = new int[64];
+    private static final long[][] rookTable = new long[64][];
+
+    private static final long[] bishopMask = new long[64];
+    private static final long[] bishopMagic = new long[64];
+    private static final int[] bishopShift = new int[64];
+    private static final long[][] bishopTable = new long[64][];
+
+    // Seeds for the magic number search per rank, picked so that every square finds its magic quickly
+    private static final long[] seeds = new long[]{ 728, 10316, 55013, 32803, 12281, 15100, 16645, 255 };
+    private static long seed;
+
+    static {
+        ArrayList<int[]> rookDirections = Piece.getAttackPattern(Piece.R);
+        ArrayList<int[]> bishopDirections = Piece.getAttackPattern(Piece.B);
+
+        for (int square = 0; square < 64; square++) {
+            knight[square] = leaperAttacks(square, Piece.getAttackPattern(Piece.N));
+            king[square] = leaperAttacks(square, Piece.getAttackPattern(Piece.K));
+            pawn[Chessboard.WHITE][square] = leaperAttacks(square, Piece.getAttackPattern(Piece.P));
+            pawn[Chessboard.BLACK][square] = leaperAttacks(square, Piece.getAttackPattern(Piece.p));
+
+            initMagic(square, rookDirections, rookMask, rookMagic, rookShift, rookTable);
+            initMagic(square, bishopDirections, bishopMask, bishopMagic, bishopShift, bishopTable);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) continue;
+
+                long fromBit = Bitboard.bit(from);
+                long toBit = Bitboard.bit(to);
+
+                if ((rookAttacks(from, 0) & toBit) != 0) {
+                    between[from][to] = rookAttacks(from, toBit) & rookAttacks(to, fromBit);
+                    line[from][to] = (rookAttacks(from, 0) & rookAttacks(to, 0)) | fromBit | toBit;
+                } else if ((bishopAttacks(from, 0) & toBit) != 0) {
+                    between[from][to] = bishopAttacks(from, toBit) & bishopAttacks(to, fromBit);
+                    line[from][to] = (bishopAttacks(from, 0) & bishopAttacks(to, 0)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    static long pawnAttacks(int color, int square) {
+        return pawn[color][square];
+    }
+
+    static long knightAttacks(int square) {
+        return knight[square];
+    }
+
+    static long kingAttacks(int square) {
+        return king[square];
+    }
+
+    static long rookAttacks(int square, long occupancy) {
+        return rookTable[square][(int)(((occupancy & rookMask[square]) * rookMagic[square]) >>> rookShift[square])];
+    }
+
+    static long bishopAttacks(int square, long occupancy) {
+        return bishopTable[square][(int)(((occupancy & bishopMask[square]) * bishopMagic[square]) >>> bishopShift[square])];
+    }
+
+    static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    static long attacks(Piece piece, int square, long occupancy) {
+        switch (piece.type()) {
+            case Piece.PAWN:
+                return pawn[piece.color()][square];
+            case Piece.KNIGHT:
+                return knight[square];
+            case Piece.BISHOP:
+                return bishopAttacks(square, occupancy);
+            case Piece.ROOK:
+                return rookAttacks(square, occupancy);
+            case Piece.QUEEN:
+                return queenAttacks(square, occupancy);
+            default:
+                return king[square];
+        }
+    }
+
+    // Squares strictly between two squares on the same line, empty if they are not aligned
+    static long between(int from, int to) {
+        return between[from][to];
+    }
+
+    // The whole line going through both squares, empty if they are not aligned
+    static long line(int from, int to) {
+        return line[from][to];
+    }
+
+    private static long leaperAttacks(int square, ArrayList<int[]> patterns) {
+        long attacks = 0;
+
+        for (int[] pattern : patterns) {
+            int row = Bitboard.row(square) + pattern[0];
+            int col = Bitboard.col(square) + pattern[1];
+
+            if (Bitboard.onBoard(row, col)) {
+                attacks |= Bitboard.bit(Bitboard.square(row, col));
+            }
+        }
+
+        return attacks;
+    }
+
+    // Walks the rays step by step, only used to fill the tables
+    private static long slidingAttacks(int square, ArrayList<int[]> directions, long occupancy) {
+        long attacks = 0;
+
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.col(square) + direction[1];
+
+            while (Bitboard.onBoard(row, col)) {
+                long bit = Bitboard.bit(Bitboard.square(row, col));
+                attacks |= bit;
+
+                if ((occupancy & bit) != 0) break;
+
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+
+        return attacks;
+    }
+
+    // Squares whose occupancy matters for a slider: the rays without the last square on the board edge
+    private static long relevantMask(int square, ArrayList<int[]> directions) {
+        long mask = 0;
+
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.col(square) + direction[1];
+
+            while (Bitboard.onBoard(row + direction[0], col + direction[1])) {
+                mask |= Bitboard.bit(Bitboard.square(row, col));
+
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+
+        return mask;
+    }
+
+    private static void initMagic(int square, ArrayList<int[]> directions, long[] masks, long[] magics, int[] shifts, long[][] tables) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        long[] occupancies = new long[size];
+        long[] references = new long[size];
+
+        // enumerate all subsets of the mask (Carry-Rippler trick)
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            references[i] = slidingAttacks(square, directions, subset);
+            subset = (subset - mask) & mask;
+        }
+
+        seed = seeds[Bitboard.row(square)];
+
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        int shift = 64 - bits;
+
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextSparseRandom();
+
+            if (Long.bitCount((mask * magic) >>> 56) < 6) continue;
+
+            boolean isFound = true;
+            for (int i = 0; i < size; i++) {
+                int index = (int)((occupancies[i] * magic) >>> shift);
+
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[index] = references[i];
+                } else if (table[index] != references[i]) {
+                    isFound = false;
+                    break;
+                }
+            }
+
+            if (isFound) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = shift;
+                tables[square] = table;
+
+                return;
+            }
+        }
+    }
+
+    // xorshift64*, candidates with few bits set make good magics more likely
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+
+        return seed * 2685821657736338717L;
+    }
+
+    private static long nextSparseRandom() {
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+}
@@ -0,0 +1,285 @@
+package com.mycompany.app.chessboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Win, draw or loss of every position of a king and one piece against a bare king, two bits per position.
+// The side with the piece is always seen as white, a position is indexed by side to move, strong king,
+// weak king and piece square. Tables are built by retrograde analysis: positions are classified again and again
+// from the positions their moves lead to, until a pass changes nothing. Whatever is still unknown then can
+// never be forced either way and is a draw
+final class Bitbase {
+    static final int SIZE = 1 << 19;
+
+    // Two-bit codes of the packed table, results are for the side to move
+    static final int INVALID = 0;
+    static final int LOSS = 1;
+    static final int DRAW = 2;
+    static final int WIN = 3;
+    // Only used while generating
+    private static final int UNKNOWN = 4;
+
+    // "BFBITBAS"
+    private static final long MAGIC = 0x4246424954424153L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // Positions classified by a single task, a pass is split into about a hundred tasks
+    private static final int TASK_SIZE = 1 << 12;
+
+    private final int type;
+    private final long[] table;
+
+    private Bitbase(int type, long[] table) {
+        this.type = type;
+        this.table = table;
+    }
+
+    static int index(boolean strongToMove, int strongKing, int weakKing, int square) {
+        return (strongToMove ? 1 << 18 : 0) | strongKing << 12 | weakKing << 6 | square;
+    }
+
+    int probe(int index) {
+        return (int)(this.table[index >>> 5] >>> ((index & 31) * 2)) & 3;
+    }
+
+    // Promotions of a pawn are looked up in the queen and rook tables, which must be built first
+    static Bitbase generate(int type, ForkJoinPool pool, Bitbase queens, Bitbase rooks) {
+        Generator generator = new Generator(type, queens, rooks);
+
+        pool.invoke(generator.new Pass(0, SIZE, true));
+
+        while (pool.invoke(generator.new Pass(0, SIZE, false)) > 0);
+
+        long[] table = new long[SIZE / 32];
+
+        for (int index = 0; index < SIZE; index++) {
+            int result = generator.results[index] == UNKNOWN ? DRAW : generator.results[index];
+
+            table[index >>> 5] |= (long)result << ((index & 31) * 2);
+        }
+
+        return new Bitbase(type, table);
+    }
+
+    // Returns null when the file is missing or was written for another format version or piece
+    static Bitbase load(Path path, int type) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + SIZE / 32 * Long.BYTES) return null;
+
+            ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+
+            buffer.flip();
+
+            if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != type) return null;
+
+            long[] table = new long[SIZE / 32];
+
+            buffer.asLongBuffer().get(table);
+
+            return new Bitbase(type, table);
+        }
+    }
+
+    // Written to a temporary file first and moved in place, a crash never leaves half a table behind
+    void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + this.table.length * Long.BYTES);
+
+        buffer.putLong(MAGIC).putInt(VERSION).putInt(this.type);
+        buffer.asLongBuffer().put(this.table);
+        buffer.rewind();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // One byte per position while generating: tasks write distinct bytes, so passes need no locks.
+    // A task may read a result another task is writing in the same pass and only see it in the next one
+    private static final class Generator {
+        private final int type;
+        private final Bitbase queens;
+        private final Bitbase rooks;
+        private final byte[] results = new byte[SIZE];
+
+        private Generator(int type, Bitbase queens, Bitbase rooks) {
+            this.type = type;
+            this.queens = queens;
+            this.rooks = rooks;
+        }
+
+        private long attacks(int square, long occupancy) {
+            switch (this.type) {
+                case Piece.PAWN: return Attacks.pawnAttacks(Chessboard.WHITE, square);
+                case Piece.ROOK: return Attacks.rookAttacks(square, occupancy);
+                default: return Attacks.queenAttacks(square, occupancy);
+            }
+        }
+
+        private boolean isValid(int index) {
+            int strongKing = index >>> 12 & 63;
+            int weakKing = index >>> 6 & 63;
+            int square = index & 63;
+
+            if (strongKing == weakKing || square == strongKing || square == weakKing) return false;
+            if ((Attacks.kingAttacks(strongKing) & Bitboard.bit(weakKing)) != 0) return false;
+            if (this.type == Piece.PAWN && (Bitboard.row(square) == 0 || Bitboard.row(square) == 7)) return false;
+
+            // the weak king cannot be in check with the strong side to move
+            long occupancy = Bitboard.bit(strongKing) | Bitboard.bit(weakKing) | Bitboard.bit(square);
+
+            return (index >>> 18) == 0 || (attacks(square, occupancy) & Bitboard.bit(weakKing)) == 0;
+        }
+
+        // Result of the position from the results of its moves, UNKNOWN while some of them are unknown
+        private int classify(int index) {
+            int strongKing = index >>> 12 & 63;
+            int weakKing = index >>> 6 & 63;
+            int square = index & 63;
+
+            return (index >>> 18) == 1 ? classifyStrong(strongKing, weakKing, square) : classifyWeak(strongKing, weakKing, square);
+        }
+
+        private int classifyStrong(int strongKing, int weakKing, int square) {
+            Outcome outcome = new Outcome();
+            long occupancy = Bitboard.bit(strongKing) | Bitboard.bit(weakKing) | Bitboard.bit(square);
+
+            for (long targets = Attacks.kingAttacks(strongKing) & ~Attacks.kingAttacks(weakKing) & ~occupancy; targets != 0; targets &= targets - 1) {
+                outcome.add(this.results[index(false, Bitboard.first(targets), weakKing, square)]);
+            }
+
+            if (this.type == Piece.PAWN) {
+                int push = square + 8;
+
+                if ((occupancy & Bitboard.bit(push)) == 0) {
+                    if (Bitboard.row(push) == 7) {
+                        // promoting to a rook is better when a queen would stalemate
+                        int promoted = index(false, strongKing, weakKing, push);
+
+                        outcome.add(Math.min(this.queens.probe(promoted), this.rooks.probe(promoted)));
+                    } else {
+                        outcome.add(this.results[index(false, strongKing, weakKing, push)]);
+
+                        if (Bitboard.row(square) == 1 && (occupancy & Bitboard.bit(push + 8)) == 0) {
+                            outcome.add(this.results[index(false, strongKing, weakKing, push + 8)]);
+                        }
+                    }
+                }
+            } else {
+                for (long targets = attacks(square, occupancy) & ~occupancy; targets != 0; targets &= targets - 1) {
+                    outcome.add(this.results[index(false, strongKing, weakKing, Bitboard.first(targets))]);
+                }
+            }
+
+            // the strong king is never in check, no moves is a stalemate
+            return outcome.result(false);
+        }
+
+        private int classifyWeak(int strongKing, int weakKing, int square) {
+            Outcome outcome = new Outcome();
+            long defended = Attacks.kingAttacks(strongKing);
+
+            for (long targets = Attacks.kingAttacks(weakKing) & ~defended; targets != 0; targets &= targets - 1) {
+                int target = Bitboard.first(targets);
+
+                if (target == square) {
+                    // the piece is taken, two bare kings
+                    outcome.add(DRAW);
+                } else if ((attacks(square, Bitboard.bit(strongKing) | Bitboard.bit(target)) & Bitboard.bit(target)) == 0) {
+                    outcome.add(this.results[index(true, strongKing, target, square)]);
+                }
+            }
+
+            long occupancy = Bitboard.bit(strongKing) | Bitboard.bit(weakKing) | Bitboard.bit(square);
+
+            return outcome.result((attacks(square, occupancy) & Bitboard.bit(weakKing)) != 0);
+        }
+
+        // Classifies positions of a range of indexes, the first pass only marks invalid ones.
+        // Returns how many positions got a result
+        private final class Pass extends RecursiveTask<Integer> {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+            private final boolean isFirst;
+
+            Pass(int from, int to, boolean isFirst) {
+                this.from = from;
+                this.to = to;
+                this.isFirst = isFirst;
+            }
+
+            @Override
+            protected Integer compute() {
+                if (this.to - this.from > TASK_SIZE) {
+                    int middle = (this.from + this.to) >>> 1;
+                    Pass low = new Pass(this.from, middle, this.isFirst);
+                    Pass high = new Pass(middle, this.to, this.isFirst);
+
+                    high.fork();
+
+                    return low.compute() + high.join();
+                }
+
+                int changes = 0;
+
+                for (int index = this.from; index < this.to; index++) {
+                    if (this.isFirst) {
+                        results[index] = (byte)(isValid(index) ? UNKNOWN : INVALID);
+                    } else if (results[index] == UNKNOWN) {
+                        int result = classify(index);
+
+                        if (result != UNKNOWN) {
+                            results[index] = (byte)result;
+                            changes++;
+                        }
+                    }
+                }
+
+                return changes;
+            }
+        }
+    }
+
+    // Results of the moves of a position, seen by the side which moves into them
+    private static final class Outcome {
+        private boolean hasMoves;
+        private boolean hasUnknown;
+        private boolean hasDraw;
+        private boolean hasWin;
+
+        void add(int result) {
+            this.hasMoves = true;
+
+            if (result == UNKNOWN) this.hasUnknown = true;
+            if (result == DRAW) this.hasDraw = true;
+            // a move into a lost position for the opponent wins
+            if (result == LOSS) this.hasWin = true;
+        }
+
+        int result(boolean isInCheck) {
+            if (!this.hasMoves) return isInCheck ? LOSS : DRAW;
+            if (this.hasWin) return WIN;
+            if (this.hasUnknown) return UNKNOWN;
+
+            return this.hasDraw ? DRAW : LOSS;
+        }
+    }
+}
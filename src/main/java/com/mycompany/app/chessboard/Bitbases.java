@@ -0,0 +1,129 @@
+package com.mycompany.app.chessboard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+// Perfect play results for king and queen, king and rook and king and pawn against a bare king. Tables are read
+// from a directory when they were generated before, otherwise generated on all threads given and saved there.
+// Probing a position is a lookup of two bits, no search is involved
+public final class Bitbases {
+    private final Bitbase queens;
+    private final Bitbase rooks;
+    private final Bitbase pawns;
+    private final int[] moves = new int[Move.MAX_MOVES];
+    // Moves are tried here, never on the board of the caller, whose snapshots other threads may be reading
+    private final Chessboard scratch = new Chessboard(new Fen());
+
+    private Bitbases(Bitbase queens, Bitbase rooks, Bitbase pawns) {
+        this.queens = queens;
+        this.rooks = rooks;
+        this.pawns = pawns;
+    }
+
+    public static Bitbases generate(int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            Bitbase queens = Bitbase.generate(Piece.QUEEN, pool, null, null);
+            Bitbase rooks = Bitbase.generate(Piece.ROOK, pool, null, null);
+
+            return new Bitbases(queens, rooks, Bitbase.generate(Piece.PAWN, pool, queens, rooks));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static Bitbases load(Path directory, int threads) throws IOException {
+        Path[] paths = new Path[]{ directory.resolve("kqk.bitbase"), directory.resolve("krk.bitbase"), directory.resolve("kpk.bitbase") };
+        Bitbase queens = Bitbase.load(paths[0], Piece.QUEEN);
+        Bitbase rooks = Bitbase.load(paths[1], Piece.ROOK);
+        Bitbase pawns = Bitbase.load(paths[2], Piece.PAWN);
+
+        if (queens != null && rooks != null && pawns != null) return new Bitbases(queens, rooks, pawns);
+
+        Bitbases bitbases = generate(threads);
+
+        bitbases.queens.save(paths[0]);
+        bitbases.rooks.save(paths[1]);
+        bitbases.pawns.save(paths[2]);
+
+        return bitbases;
+    }
+
+    // Returns null for positions with other material, castling rights or which cannot be reached
+    public EndgameResult probe(Chessboard chessboard) {
+        long occupied = chessboard.occupancy();
+
+        if (Long.bitCount(occupied) != 3 || chessboard.castlingRights() != 0) return null;
+
+        Piece piece = null;
+        int square = Bitboard.NO_SQUARE;
+        int[] kings = new int[2];
+
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int current = Bitboard.first(squares);
+            Piece found = chessboard.pieceAt(current);
+
+            if (found.isKing()) {
+                kings[found.color()] = current;
+            } else {
+                piece = found;
+                square = current;
+            }
+        }
+
+        if (piece == null) return null;
+
+        Bitbase bitbase = bitbase(piece.type());
+
+        if (bitbase == null) return null;
+
+        int strong = piece.color();
+        // a black piece is looked up on the board turned upside down
+        int flip = strong == Chessboard.WHITE ? 0 : 56;
+        boolean strongToMove = chessboard.getSideToMove() == (strong == Chessboard.WHITE);
+        int result = bitbase.probe(Bitbase.index(strongToMove, kings[strong] ^ flip, kings[strong ^ 1] ^ flip, square ^ flip));
+
+        switch (result) {
+            case Bitbase.WIN: return EndgameResult.WIN;
+            case Bitbase.DRAW: return EndgameResult.DRAW;
+            case Bitbase.LOSS: return EndgameResult.LOSS;
+            default: return null;
+        }
+    }
+
+    private Bitbase bitbase(int type) {
+        switch (type) {
+            case Piece.QUEEN: return this.queens;
+            case Piece.ROOK: return this.rooks;
+            case Piece.PAWN: return this.pawns;
+            default: return null;
+        }
+    }
+
+    // A move keeping the draw in a drawn position, Move.NONE in any other one. Won and lost positions are left
+    // to a search: any winning move keeps the win, but only a search makes progress to mate, and without
+    // distances to mate the tables cannot tell which losing move holds out longest.
+    // Moves are generated into buffers of this object, a single thread at a time may pick moves
+    public int pickMove(Chessboard chessboard) {
+        if (probe(chessboard) != EndgameResult.DRAW) return Move.NONE;
+
+        this.scratch.copyFrom(chessboard);
+
+        int count = this.scratch.generateLegalMoves(this.moves);
+
+        for (int i = 0; i < count; i++) {
+            this.scratch.makeMove(this.moves[i]);
+
+            // a capture or a promotion to a minor piece leaves no mating material
+            EndgameResult after = probe(this.scratch);
+
+            this.scratch.unmakeMove();
+
+            if (after == null || after == EndgameResult.DRAW) return this.moves[i];
+        }
+
+        return Move.NONE;
+    }
+}
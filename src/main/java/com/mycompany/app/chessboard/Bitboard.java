@@ -0,0 +1,55 @@
+package com.mycompany.app.chessboard;
+
+// Helpers for 64-bit board masks. Squares are indexed row * 8 + col, so a1 = 0, h1 = 7 and h8 = 63,
+// which matches the [row][col] layout of Chessboard.getBoard()
+final class Bitboard {
+    static final int NO_SQUARE = -1;
+
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_2 = RANK_1 << 8;
+    static final long RANK_7 = RANK_1 << 48;
+    static final long RANK_8 = RANK_1 << 56;
+    static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private Bitboard() {}
+
+    static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    static int row(int square) {
+        return square >>> 3;
+    }
+
+    static int col(int square) {
+        return square & 7;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    static int first(long mask) {
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    // Parses a square such as "e4" starting at the given offset, returns NO_SQUARE if it is not a square
+    static int parseSquare(CharSequence text, int offset) {
+        if (text.length() < offset + 2) return NO_SQUARE;
+
+        int col = text.charAt(offset) - 'a';
+        int row = text.charAt(offset + 1) - '1';
+
+        return onBoard(row, col) ? square(row, col) : NO_SQUARE;
+    }
+
+    static String squareName(int square) {
+        return new String(new char[]{ (char)('a' + col(square)), (char)('1' + row(square)) });
+    }
+}
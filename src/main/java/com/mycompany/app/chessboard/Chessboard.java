@@ -1,576 +1,1052 @@
 package com.mycompany.app.chessboard;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Properties;
-import java.util.stream.Collectors;
 
 import com.mycompany.app.exceptions.IllegalMoveException;
 
 public class Chessboard {
-    private char[][] board;
+    static final int BLACK = 0;
+    static final int WHITE = 1;
+
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+
+    // King from, king to, rook from, rook to for every castling right, indexed by the right's bit position
+    static final int[][] castlingSquares = new int[][]{
+        { 4, 6, 7, 5 },
+        { 4, 2, 0, 3 },
+        { 60, 62, 63, 61 },
+        { 60, 58, 56, 59 },
+    };
+
+    // Castling rights which are kept when a piece leaves or lands on a square
+    private static final int[] castlingMask = new int[64];
+
+    static {
+        Arrays.fill(castlingMask, 0xF);
+
+        for (int right = 0; right < castlingSquares.length; right++) {
+            castlingMask[castlingSquares[right][0]] &= ~(1 << right);
+            castlingMask[castlingSquares[right][2]] &= ~(1 << right);
+        }
+    }
+
+    // One bitboard per piece, indexed by Piece.ordinal(); colors are indexed by Piece.color()
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final Piece[] squares = new Piece[64];
+    // Squares of each side's pieces in no particular order, listIndex points from a square back into its list
+    private final int[][] pieceList = new int[2][64];
+    private final int[] pieceCount = new int[2];
+    private final int[] listIndex = new int[64];
+    private final int[] kingSquare = new int[]{ Bitboard.NO_SQUARE, Bitboard.NO_SQUARE };
     private boolean whiteToMove;
-    private String whiteKingPos;
-    private String blackKingPos;
-    private String enPassant;
+    private int castlingRights;
+    // Square behind a pawn which has just moved two squares, NO_SQUARE otherwise
+    private int enPassant = Bitboard.NO_SQUARE;
     private MoveType moveType;
-    private boolean isMate;
-    private final String moveFormatMask = "([a-h][1-8]){2}";
-    private final String pawnPromotionMask = "([a-h])([27])\\1([18])([rnbq])";
-    private Properties castlingRights;
-    
+    // Checkmate, stalemate or insufficient material, null until asked for after every move.
+    // Repetitions and the fifty-move rule depend on the move history and are not cached
+    private GameState positionState;
+    // Plies since the last capture or pawn move, for the fifty-move rule
+    private int halfmoveClock;
+    // Zobrist key of the position, see Zobrist
+    private long key;
+    private final AttackMap attackMap = new AttackMap();
+    // Check info of the side to move: enemy pieces giving check, own pieces pinned to the king and squares
+    // a non-king move has to land on while in check. Computed on first use after every move
+    private boolean isCheckInfoValid;
+    private long checkers;
+    private long pinned;
+    private long evasionTargets;
+
+    // One entry per move played: the move itself and whatever the move cannot tell about the previous position,
+    // i.e. captured piece ordinal + 1 (bits 18-21), castling rights (bits 22-25), en passant square + 1 (bits 26-32)
+    // and the halfmove clock (bits 33-42).
+    // Keys of the previous positions are kept alongside, indexed the same way
+    private long[] undoStack = new long[256];
+    private long[] keyHistory = new long[256];
+    private int ply;
+    // Plies played before the initial position, taken from its fullmove number
+    private int startPly;
+    private final StringBuilder fenBuilder = new StringBuilder(96);
+    // Legal moves searched when resolving standard algebraic notation
+    private final int[] sanMoves = new int[Move.MAX_MOVES];
+
+    // Latest published position for other threads. Publishing allocates, so it is off unless asked for,
+    // boards used for search and validation stay garbage free
+    private volatile PositionSnapshot snapshot;
+    private boolean isPublishingSnapshots;
+
     public Chessboard(String fen) {
-        this.board = new char[8][8];
+        this(new Fen(fen));
+    }
 
-        fromFen(fen);
+    public Chessboard(Fen fen) {
+        setPosition(fen);
+    }
 
-        String splitFen[] = fen.split(" ");
+    public Chessboard(Chessboard chessboard) {
+        copyFrom(chessboard);
+    }
 
-        this.whiteToMove = splitFen[1].equals("w");
-        this.enPassant = splitFen[3];
-        this.whiteKingPos = findKing(true);
-        this.blackKingPos = findKing(false);
-        this.isMate = isKingMated();
+    // Replaces the position and forgets the moves played, reusing the arrays already allocated
+    public void setPosition(Fen fen) {
+        Arrays.fill(this.pieces, 0);
+        Arrays.fill(this.colors, 0);
+        Arrays.fill(this.squares, null);
+        Arrays.fill(this.pieceCount, 0);
+        Arrays.fill(this.kingSquare, Bitboard.NO_SQUARE);
+        this.occupied = 0;
+        this.key = 0;
+        this.ply = 0;
+        this.moveType = null;
+        this.positionState = null;
+        this.isCheckInfoValid = false;
+
+        for (int square = 0; square < 64; square++) {
+            Piece piece = fen.piece(square);
+
+            if (piece != null) putPiece(piece, square);
+        }
 
-        String castling = splitFen[2];
+        this.whiteToMove = fen.getSideToMove();
+        this.castlingRights = fen.castlingRights();
+        this.enPassant = fen.enPassant();
+        this.halfmoveClock = fen.getHalfmoveClock();
+        this.startPly = (fen.getFullmoveNumber() - 1) * 2 + (this.whiteToMove ? 0 : 1);
 
-        this.castlingRights = new Properties();
-        if (castling.contains("K")) {
-            this.castlingRights.setProperty("e1g1", "h1f1");
-        }
-        if (castling.contains("k")) {
-            this.castlingRights.setProperty("e8g8", "h8f8");
-        }
-        if (castling.contains("Q")) {
-            this.castlingRights.setProperty("e1c1", "a1d1");
+        this.key ^= Zobrist.castling(this.castlingRights) ^ enPassantKey() ^ (this.whiteToMove ? Zobrist.side() : 0);
+
+        this.attackMap.build(this.squares, this.occupied);
+
+        if (this.isPublishingSnapshots) publishSnapshot();
+    }
+
+    // Turns this board into a copy of another one, reusing the arrays already allocated
+    void copyFrom(Chessboard chessboard) {
+        System.arraycopy(chessboard.pieces, 0, this.pieces, 0, this.pieces.length);
+        System.arraycopy(chessboard.colors, 0, this.colors, 0, this.colors.length);
+        System.arraycopy(chessboard.squares, 0, this.squares, 0, this.squares.length);
+        for (int color = BLACK; color <= WHITE; color++) {
+            System.arraycopy(chessboard.pieceList[color], 0, this.pieceList[color], 0, chessboard.pieceCount[color]);
+            this.pieceCount[color] = chessboard.pieceCount[color];
+            this.kingSquare[color] = chessboard.kingSquare[color];
         }
-        if (castling.contains("q")) {
-            this.castlingRights.setProperty("e8c8", "a8d8");
+        System.arraycopy(chessboard.listIndex, 0, this.listIndex, 0, this.listIndex.length);
+        this.occupied = chessboard.occupied;
+        this.whiteToMove = chessboard.whiteToMove;
+        this.castlingRights = chessboard.castlingRights;
+        this.enPassant = chessboard.enPassant;
+        this.moveType = chessboard.moveType;
+        this.positionState = chessboard.positionState;
+        this.halfmoveClock = chessboard.halfmoveClock;
+        this.key = chessboard.key;
+        this.isCheckInfoValid = false;
+        this.attackMap.copyFrom(chessboard.attackMap);
+
+        if (this.undoStack.length < chessboard.ply) {
+            this.undoStack = new long[chessboard.undoStack.length];
+            this.keyHistory = new long[chessboard.keyHistory.length];
         }
+        System.arraycopy(chessboard.undoStack, 0, this.undoStack, 0, chessboard.ply);
+        System.arraycopy(chessboard.keyHistory, 0, this.keyHistory, 0, chessboard.ply);
+        this.ply = chessboard.ply;
+        this.startPly = chessboard.startPly;
+
+        if (this.isPublishingSnapshots) publishSnapshot();
+    }
+
+    // Makes every following move, takeback and copy publish a new snapshot, starting with the current position
+    public void setPublishingSnapshots(boolean isPublishingSnapshots) {
+        this.isPublishingSnapshots = isPublishingSnapshots;
+
+        if (isPublishingSnapshots) publishSnapshot();
+    }
+
+    // Safe to call from any thread, returns null until publishing has been turned on
+    public PositionSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    private void publishSnapshot() {
+        int lastMove = this.ply == 0 ? Move.NONE : (int)(this.undoStack[this.ply - 1] & 0x3FFFF);
+
+        this.snapshot = new PositionSnapshot(this.squares, this.whiteToMove, this.castlingRights, getEnPassant(),
+            this.halfmoveClock, this.ply, lastMove, this.key, getGameState());
     }
 
     public boolean getSideToMove() {
         return this.whiteToMove;
     }
 
+    // 64-bit Zobrist key, equal for positions with the same pieces, side to move, castling rights and en passant capture
+    public long getKey() {
+        return this.key;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    // Returns the square of the pawn which can be captured en passant, or an empty string
     public String getEnPassant() {
-        return this.enPassant;
+        if (this.enPassant == Bitboard.NO_SQUARE) return "";
+
+        return Bitboard.squareName(this.enPassant + (Bitboard.row(this.enPassant) == 2 ? 8 : -8));
     }
 
+    // Returns a copy of the position as rows of piece letters, '\0' stands for an empty square
     public char[][] getBoard() {
-        return this.board;
+        char[][] board = new char[8][8];
+
+        for (long mask = this.occupied; mask != 0; mask &= mask - 1) {
+            int square = Bitboard.first(mask);
+
+            board[Bitboard.row(square)][Bitboard.col(square)] = this.squares[square].toChar();
+        }
+
+        return board;
     }
 
+    // Returns castling rights as king moves mapped to the matching rook moves, e.g. e1g1 -> h1f1
     public Properties getCastlingRights() {
-        return this.castlingRights;
+        Properties castlingRights = new Properties();
+
+        for (int right = 0; right < castlingSquares.length; right++) {
+            if ((this.castlingRights & (1 << right)) != 0) {
+                int[] castling = castlingSquares[right];
+
+                castlingRights.setProperty(
+                    Bitboard.squareName(castling[0]) + Bitboard.squareName(castling[1]),
+                    Bitboard.squareName(castling[2]) + Bitboard.squareName(castling[3])
+                );
+            }
+        }
+
+        return castlingRights;
+    }
+
+    // The position in Forsyth-Edwards Notation with KQkq castling rights. The builder is reused,
+    // only the returned string is allocated
+    public String toFen() {
+        this.fenBuilder.setLength(0);
+
+        return appendFen(this.fenBuilder).toString();
     }
 
-    private void fromFen(String fen) {
-        String[] fenBoard = fen.split(" ")[0].split("/");
+    public StringBuilder appendFen(StringBuilder builder) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
 
-        for (int rowN = 0; rowN < 8; rowN++) {
-            char[] row = fenBoard[rowN].toCharArray();
-            int colN = 0;
-            for (char ch : row) {
-                if (Character.isDigit(ch)) {
-                    colN += Character.getNumericValue(ch);
-                } else {
-                    this.board[7 - rowN][colN++] = ch;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = this.squares[Bitboard.square(row, col)];
+
+                if (piece == null) {
+                    empty++;
+                    continue;
                 }
+
+                if (empty > 0) builder.append((char)('0' + empty));
+                builder.append(piece.toChar());
+                empty = 0;
             }
+
+            if (empty > 0) builder.append((char)('0' + empty));
+            if (row > 0) builder.append('/');
+        }
+
+        builder.append(this.whiteToMove ? " w " : " b ");
+
+        if (this.castlingRights == 0) builder.append('-');
+        if ((this.castlingRights & WHITE_KINGSIDE) != 0) builder.append('K');
+        if ((this.castlingRights & WHITE_QUEENSIDE) != 0) builder.append('Q');
+        if ((this.castlingRights & BLACK_KINGSIDE) != 0) builder.append('k');
+        if ((this.castlingRights & BLACK_QUEENSIDE) != 0) builder.append('q');
+
+        builder.append(' ');
+
+        if (this.enPassant == Bitboard.NO_SQUARE) {
+            builder.append('-');
+        } else {
+            builder.append((char)('a' + Bitboard.col(this.enPassant))).append((char)('1' + Bitboard.row(this.enPassant)));
         }
-    }
 
-    private String getCurrPos(String move) {
-        return move.substring(0, 2);
+        return builder.append(' ').append(this.halfmoveClock).append(' ').append((this.startPly + this.ply) / 2 + 1);
     }
 
-    private String getDstPos(String move) {
-        return move.substring(2, 4);
+    private int us() {
+        return this.whiteToMove ? WHITE : BLACK;
     }
 
-    private int[] getPosIds(String pos) {
-        int[] ids = new int[2];
+    private void putPiece(Piece piece, int square) {
+        long bit = Bitboard.bit(square);
 
-        int row = Character.getNumericValue(pos.charAt(1)) - 1;
-        int col = pos.charAt(0) - 'a';
+        this.pieces[piece.ordinal()] |= bit;
+        this.colors[piece.color()] |= bit;
+        this.occupied |= bit;
+        this.squares[square] = piece;
+        this.key ^= Zobrist.piece(piece, square);
 
-        ids[0] = row;
-        ids[1] = col;
+        int color = piece.color();
+        this.listIndex[square] = this.pieceCount[color];
+        this.pieceList[color][this.pieceCount[color]++] = square;
 
-        return ids;
+        if (piece.isKing()) {
+            this.kingSquare[color] = square;
+        }
     }
 
-    private  boolean isWhite(char piece) {
-        return Character.isUpperCase(piece);
+    private Piece removePiece(int square) {
+        Piece piece = this.squares[square];
+        long bit = Bitboard.bit(square);
+
+        this.pieces[piece.ordinal()] &= ~bit;
+        this.colors[piece.color()] &= ~bit;
+        this.occupied &= ~bit;
+        this.squares[square] = null;
+        this.key ^= Zobrist.piece(piece, square);
+
+        // the last piece of the list takes the place of the removed one
+        int color = piece.color();
+        int[] list = this.pieceList[color];
+        int last = list[--this.pieceCount[color]];
+        list[this.listIndex[square]] = last;
+        this.listIndex[last] = this.listIndex[square];
+
+        if (piece.isKing()) {
+            this.kingSquare[color] = Bitboard.NO_SQUARE;
+        }
+
+        return piece;
     }
 
-    // Returns a board 8 x 8 with boolean values.
-    // If value is true, than means that this square is under attack of a side which is to move after the current move is made
-    // This method is needed to check for checks/mates & castling privilegies
-    // Note! the logic treats enemy king as an empty square; also own pieces are also treated as squares which can be attacked if such a piece is protected by another one
-    // squares past the enemy king will be also checked till the encounter of the first enemy piece
-    private boolean[][] getCheckBoard() {
-        boolean[][] checkBoard = new boolean[8][8];
-        
-        for (int rowN = 0; rowN < this.board.length; rowN++) {
-            for (int colN = 0; colN < this.board[rowN].length; colN++) {
-                if (pieceExists(rowN, colN)) {
-                    char charPiece = findPiece(rowN, colN);
+    // The en passant square only counts as part of the position when a pawn can actually capture there
+    private long enPassantKey() {
+        int square = capturableEnPassant();
 
-                    if (ofOppositeColor(charPiece)) {
-                        Piece piece = Piece.convertFromChar(charPiece);
+        return square == Bitboard.NO_SQUARE ? 0 : Zobrist.enPassant(square);
+    }
 
-                        boolean isPatternRecurrent = Piece.isPatternReccurent(piece);
-                        ArrayList<int[]> attackPatterns = Piece.getAttackPattern(piece);
+    // En passant square a pawn of the side to move stands next to, NO_SQUARE otherwise.
+    // Position keys only count en passant when a capture is possible
+    int capturableEnPassant() {
+        if (this.enPassant == Bitboard.NO_SQUARE) return Bitboard.NO_SQUARE;
 
-                        for (int[] attackPattern : attackPatterns) {
-                            int rowInc = attackPattern[0];
-                            int colInc = attackPattern[1];
+        long capturers = Attacks.pawnAttacks(us() ^ 1, this.enPassant) & this.pieces[Piece.of(Piece.PAWN, us()).ordinal()];
 
-                            int newRow = rowN;
-                            int newCol = colN;
+        return capturers == 0 ? Bitboard.NO_SQUARE : this.enPassant;
+    }
 
-                            while(true) {
-                                newRow += rowInc;
-                                newCol += colInc;
+    Piece pieceAt(int square) {
+        return this.squares[square];
+    }
 
-                                if (newRow < this.board.length && newCol < this.board.length && newRow >= 0 && newCol >= 0) {
-                                    char pieceAtNewCoords = findPiece(newRow, newCol);
-                                    if (pieceExists(pieceAtNewCoords)) {
-                                        if (!ofOppositeColor(pieceAtNewCoords) && (pieceAtNewCoords != 'k' || pieceAtNewCoords != 'K') || (ofOppositeColor(pieceAtNewCoords))) {
-                                            checkBoard[newRow][newCol] = true;
-                                            break;
-                                        } else {
-                                            break;
-                                        }
-                                    } else {
-                                        checkBoard[newRow][newCol] = true;
-                                    }
-                                } else {
-                                    break;
-                                }
+    long occupancy() {
+        return this.occupied;
+    }
 
-                                if (!isPatternRecurrent) break;
-                            }
-                        }
-                    }
-                }
-            }
-        }
+    int castlingRights() {
+        return this.castlingRights;
+    }
 
-        return checkBoard;
+    private int findKing(int color) {
+        return this.kingSquare[color];
     }
 
-    private boolean[][] getCheckBoard(boolean forWhite) {
-        boolean[][] checkBoard = new boolean[8][8];
+    // Returns pieces of both colors attacking the square. Pieces missing from the occupancy are treated as
+    // empty squares, which lets callers look through the king or ignore a captured piece
+    private long attackersTo(int square, long occupancy) {
+        long attackers = (Attacks.pawnAttacks(WHITE, square) & this.pieces[Piece.p.ordinal()])
+            | (Attacks.pawnAttacks(BLACK, square) & this.pieces[Piece.P.ordinal()])
+            | (Attacks.knightAttacks(square) & (this.pieces[Piece.n.ordinal()] | this.pieces[Piece.N.ordinal()]))
+            | (Attacks.kingAttacks(square) & (this.pieces[Piece.k.ordinal()] | this.pieces[Piece.K.ordinal()]))
+            | (Attacks.bishopAttacks(square, occupancy) & bishopsAndQueens())
+            | (Attacks.rookAttacks(square, occupancy) & rooksAndQueens());
+
+        return attackers & occupancy;
+    }
 
-        for (int rowN = 0; rowN < this.board.length; rowN++) {
-            for (int colN = 0; colN < this.board[rowN].length; colN++) {
-                if (pieceExists(rowN, colN)) {
-                    char charPiece = findPiece(rowN, colN);
+    private long bishopsAndQueens() {
+        return this.pieces[Piece.b.ordinal()] | this.pieces[Piece.B.ordinal()] | this.pieces[Piece.q.ordinal()] | this.pieces[Piece.Q.ordinal()];
+    }
 
-                    boolean pieceOfOppositeColor = isWhite(charPiece) ^ forWhite;
+    private long sliders() {
+        return bishopsAndQueens() | this.pieces[Piece.r.ordinal()] | this.pieces[Piece.R.ordinal()];
+    }
 
-                    if (pieceOfOppositeColor) {
-                        Piece piece = Piece.convertFromChar(charPiece);
+    private long rooksAndQueens() {
+        return this.pieces[Piece.r.ordinal()] | this.pieces[Piece.R.ordinal()] | this.pieces[Piece.q.ordinal()] | this.pieces[Piece.Q.ordinal()];
+    }
 
-                        boolean isPatternRecurrent = Piece.isPatternReccurent(piece);
-                        ArrayList<int[]> attackPatterns = Piece.getAttackPattern(piece);
+    private boolean isSquareAttacked(int square, int byColor, long occupancy) {
+        return (attackersTo(square, occupancy) & this.colors[byColor]) != 0;
+    }
 
-                        for (int[] attackPattern : attackPatterns) {
-                            int rowInc = attackPattern[0];
-                            int colInc = attackPattern[1];
+    private void updateCheckInfo() {
+        if (this.isCheckInfoValid) return;
 
-                            int newRow = rowN;
-                            int newCol = colN;
+        int us = us();
+        int kingPos = findKing(us);
 
-                            while(true) {
-                                newRow += rowInc;
-                                newCol += colInc;
+        this.checkers = attackersTo(kingPos, this.occupied) & this.colors[us ^ 1];
+        this.pinned = 0;
 
-                                if (newRow < this.board.length && newCol < this.board.length && newRow >= 0 && newCol >= 0) {
-                                    char pieceAtNewCoords = findPiece(newRow, newCol);
-                                    boolean pieceAtNewCoordsOfOppositeColor = !(isWhite(pieceAtNewCoords) ^ forWhite);
+        // enemy sliders which would attack the king if there were no pieces in between
+        long snipers = ((Attacks.rookAttacks(kingPos, 0) & rooksAndQueens()) | (Attacks.bishopAttacks(kingPos, 0) & bishopsAndQueens()))
+            & this.colors[us ^ 1];
 
-                                    if (pieceExists(pieceAtNewCoords)) {
-                                        if (pieceAtNewCoordsOfOppositeColor && (pieceAtNewCoords == 'k' || pieceAtNewCoords == 'K')) {
-                                            checkBoard[newRow][newCol] = true;
-                                        } else {
-                                            break;
-                                        }
-                                    } else {
-                                        checkBoard[newRow][newCol] = true;
-                                    }
-                                } else {
-                                    break;
-                                }
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingPos, Bitboard.first(snipers)) & this.occupied;
 
-                                if (!isPatternRecurrent) break;
-                            }
-                        }
-                    }
-                }
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & this.colors[us]) != 0) {
+                this.pinned |= blockers;
             }
         }
 
-        return checkBoard;
-    }
+        if (this.checkers == 0) {
+            this.evasionTargets = ~0L;
+        } else if ((this.checkers & (this.checkers - 1)) == 0) {
+            this.evasionTargets = Attacks.between(kingPos, Bitboard.first(this.checkers)) | this.checkers;
+        } else {
+            this.evasionTargets = 0;
+        }
 
-    private boolean pieceExists(String pos) {
-        return findPiece(pos) != '\0';
+        this.isCheckInfoValid = true;
     }
 
-    private boolean pieceExists(int rowN, int colN) {
-        return this.board[rowN][colN] != '\0';
+    // Checks if a piece can reach the destination following its attack pattern, sliders must have a free path
+    private boolean canReach(Piece piece, int from, int to) {
+        return (Attacks.attacks(piece, from, this.occupied) & Bitboard.bit(to)) != 0;
     }
 
-    private boolean pieceExists(char piece) {
-        return piece != '\0';
+    private boolean hasPiecesInBetween(int from, int to) {
+        return (Attacks.between(from, to) & this.occupied) != 0;
     }
 
-    private boolean ofOppositeColor(char piece) {
-        return Character.isUpperCase(piece) ^ this.whiteToMove;
-    }
+    private int findCastling(int from, int to) {
+        for (int right = 0; right < castlingSquares.length; right++) {
+            if ((this.castlingRights & (1 << right)) != 0 && castlingSquares[right][0] == from && castlingSquares[right][1] == to) {
+                return right;
+            }
+        }
 
-    private boolean ofOppositeColor(Piece piece) {
-        return ofOppositeColor(piece.name().charAt(0));
+        return -1;
     }
 
-    private char findPiece(String pos) {
-        int[] ids = getPosIds(pos);
-        int row = ids[0];
-        int col = ids[1];
+    private boolean validateCastling(int right) {
+        int[] castling = castlingSquares[right];
+        int them = us() ^ 1;
 
-        return findPiece(row, col);
-    }
+        if (this.squares[castling[2]] != Piece.of(Piece.ROOK, us())) return false;
+        if (hasPiecesInBetween(castling[0], castling[2])) return false;
+
+        int step = castling[1] > castling[0] ? 1 : -1;
+        for (int square = castling[0]; square != castling[1] + step; square += step) {
+            if (this.attackMap.isAttacked(them, square)) return false;
+        }
 
-    private char findPiece(int rowN, int colN) {
-        return this.board[rowN][colN];
+        return true;
     }
 
-    private String findKing(boolean white) {
-        String pos = "";
-        char king = white ? 'K' : 'k';
-        char rank = '1';
+    private boolean validatePawnMove(int from, int to, boolean hasPromotion) {
+        int forward = this.whiteToMove ? 8 : -8;
+        int rowInc = (Bitboard.row(to) - Bitboard.row(from)) * (this.whiteToMove ? 1 : -1);
+        int colInc = Math.abs(Bitboard.col(to) - Bitboard.col(from));
+        long lastRank = this.whiteToMove ? Bitboard.RANK_8 : Bitboard.RANK_1;
+        boolean isPromotion = (lastRank & Bitboard.bit(to)) != 0;
 
-        for (int rowN = 0; rowN < this.board.length; rowN++) {
-            char let = 'a';
+        if (isPromotion != hasPromotion) return false;
 
-            for (int colN = 0; colN < this.board[rowN].length; colN++) {
-                if (this.board[rowN][colN] == king) {
-                    pos = new String(new char[]{ let, rank });
-                    return pos;
-                } else {
-                    let++;
-                }
+        if (colInc == 0) {
+            if ((this.occupied & Bitboard.bit(to)) != 0) return false;
+
+            if (rowInc == 1) {
+                this.moveType = isPromotion ? MoveType.PROMOTION : MoveType.REGULAR;
+
+                return true;
+            }
+
+            long startRank = this.whiteToMove ? Bitboard.RANK_2 : Bitboard.RANK_7;
+            if (rowInc == 2 && (startRank & Bitboard.bit(from)) != 0 && (this.occupied & Bitboard.bit(from + forward)) == 0) {
+                this.moveType = MoveType.PAWN_TWO_SQUARES;
+
+                return true;
+            }
+        } else if (colInc == 1 && rowInc == 1) {
+            if ((this.colors[us() ^ 1] & Bitboard.bit(to)) != 0) {
+                this.moveType = isPromotion ? MoveType.PROMOTION : MoveType.REGULAR;
+
+                return true;
+            }
+
+            if (to == this.enPassant) {
+                this.moveType = MoveType.EN_PASSANT;
+
+                return true;
             }
-            rank++;
         }
 
-        return pos;
+        return false;
     }
 
-    private boolean validateCastling(String move) {
-        if (this.castlingRights.containsKey(move)) {
-            try {
-                if (!hasPiecesInBetween(move) && !hasSquaresUnderAttack(move)) {
+    private boolean validateMove(int move) throws IllegalMoveException {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean hasPromotion = Move.promotion(move) != 0;
+
+        Piece piece = this.squares[from];
+
+        if (piece == null) {
+            throw new IllegalMoveException("Square " + Bitboard.squareName(from) + " is empty");
+        }
+
+        if (piece.isWhite() != this.whiteToMove) {
+            throw new IllegalMoveException("Not your turn. You play as " + (this.whiteToMove ? "white" : "black"));
+        }
+
+        if ((this.colors[us()] & Bitboard.bit(to)) != 0) return false;
+
+        // only pawns promote, castling included
+        if (hasPromotion && !piece.isPawn()) return false;
+
+        // check unordinary cases: castling, en passant & promotion
+        if (piece.isKing()) {
+            int right = findCastling(from, to);
+
+            if (right != -1) {
+                if (validateCastling(right)) {
+                    this.moveType = MoveType.CASTLING;
+
                     return true;
                 }
-            } catch (IllegalMoveException e) {}
+
+                return false;
+            }
+        } else if (piece.isPawn()) {
+            return validatePawnMove(from, to, hasPromotion);
+        }
+
+        if (canReach(piece, from, to)) {
+            this.moveType = MoveType.REGULAR;
+
+            return true;
         }
 
         return false;
     }
 
-    private boolean validateEnPassant(String move) {
-        String dstPos = getDstPos(move);
+    // Fills the buffer with all legal moves of the side to move and returns their number.
+    // Moves are packed ints (see Move), the buffer should hold at least Move.MAX_MOVES entries
+    public int generateLegalMoves(int[] moves) {
+        int us = us();
+        int kingPos = findKing(us);
+        int count = 0;
+
+        if (kingPos == Bitboard.NO_SQUARE) return 0;
+
+        updateCheckInfo();
+
+        int[] list = this.pieceList[us];
+        boolean isDoubleCheck = (this.checkers & (this.checkers - 1)) != 0;
+
+        // only the pieces on the board are visited, endgames with few pieces are cheap
+        for (int i = 0; i < this.pieceCount[us]; i++) {
+            int from = list[i];
+            Piece piece = this.squares[from];
+
+            // only the king can escape a double check
+            if (isDoubleCheck && from != kingPos) continue;
+
+            if (piece.isPawn()) {
+                count = addPawnMoves(moves, count, kingPos, from);
+                continue;
+            }
+
+            for (long targets = Attacks.attacks(piece, from, this.occupied) & ~this.colors[us]; targets != 0; targets &= targets - 1) {
+                count = addMove(moves, count, kingPos, from, Bitboard.first(targets), MoveType.REGULAR);
+            }
+        }
+
+        for (int right = 0; right < castlingSquares.length; right++) {
+            if ((this.castlingRights & (1 << right)) != 0 && castlingSquares[right][0] == kingPos && validateCastling(right)) {
+                moves[count++] = Move.of(kingPos, castlingSquares[right][1], MoveType.CASTLING);
+            }
+        }
+
+        return count;
+    }
+
+    private int addPawnMoves(int[] moves, int count, int kingPos, int from) {
+        int us = us();
+        int forward = this.whiteToMove ? 8 : -8;
+        long startRank = this.whiteToMove ? Bitboard.RANK_2 : Bitboard.RANK_7;
+        long lastRank = this.whiteToMove ? Bitboard.RANK_8 : Bitboard.RANK_1;
+        int to = from + forward;
 
-        return this.enPassant.equals(dstPos);
+        if ((this.occupied & Bitboard.bit(to)) == 0) {
+            count = addPawnMove(moves, count, kingPos, from, to, lastRank);
+
+            if ((startRank & Bitboard.bit(from)) != 0 && (this.occupied & Bitboard.bit(to + forward)) == 0) {
+                count = addMove(moves, count, kingPos, from, to + forward, MoveType.PAWN_TWO_SQUARES);
+            }
+        }
+
+        long attacks = Attacks.pawnAttacks(us, from);
+
+        for (long captures = attacks & this.colors[us ^ 1]; captures != 0; captures &= captures - 1) {
+            count = addPawnMove(moves, count, kingPos, from, Bitboard.first(captures), lastRank);
+        }
+
+        if (this.enPassant != Bitboard.NO_SQUARE && (attacks & Bitboard.bit(this.enPassant)) != 0
+                && this.squares[this.enPassant - forward] == Piece.of(Piece.PAWN, us ^ 1)) {
+            count = addMove(moves, count, kingPos, from, this.enPassant, MoveType.EN_PASSANT);
+        }
+
+        return count;
     }
 
-    private boolean validatePromotion(String move) {
-        String currPos = getCurrPos(move);
-        String dstPos = getDstPos(move);
+    private int addPawnMove(int[] moves, int count, int kingPos, int from, int to, long lastRank) {
+        if ((lastRank & Bitboard.bit(to)) == 0) {
+            return addMove(moves, count, kingPos, from, to, MoveType.REGULAR);
+        }
+
+        if (!isLegal(kingPos, from, to, MoveType.PROMOTION)) return count;
 
-        Piece piece = Piece.convertFromChar(findPiece(currPos));
+        for (int type = Piece.QUEEN; type >= Piece.ROOK; type--) {
+            moves[count++] = Move.of(from, to, MoveType.PROMOTION, type);
+        }
 
-        int[] currPosIds = getPosIds(currPos);
-        int[] dstPosIds = getPosIds(dstPos);
+        return count;
+    }
 
-        int[] vector = Piece.getMoveDirection(piece, currPosIds, dstPosIds);
-        
-        if (vector[0] == 0 && vector[1] != 0) {
-            if (!pieceExists(dstPos)) return true;
+    private int addMove(int[] moves, int count, int kingPos, int from, int to, MoveType type) {
+        if (isLegal(kingPos, from, to, type)) {
+            moves[count++] = Move.of(from, to, type);
         }
 
-        return false;
+        return count;
     }
 
-    private boolean validateMove(String move) throws IllegalMoveException {
-        if (!(move.matches(this.moveFormatMask) || move.matches(this.pawnPromotionMask))) {
-            throw new IllegalMoveException("Move not recognized");
+    // Tells whether a pseudo-legal move keeps the own king safe. Most moves are settled by the check info masks,
+    // king moves and en passant probe the king square with the occupancy the move would leave behind
+    private boolean isLegal(int kingPos, int from, int to, MoveType type) {
+        int them = us() ^ 1;
+
+        if (from == kingPos) {
+            return !isSquareAttacked(to, them, this.occupied ^ Bitboard.bit(from));
         }
 
-        String currPos = getCurrPos(move);
-        String dstPos = getDstPos(move);
+        if (type != MoveType.EN_PASSANT) {
+            updateCheckInfo();
+
+            if ((this.evasionTargets & Bitboard.bit(to)) == 0) return false;
 
-        if (!pieceExists(currPos)) {
-            throw new IllegalMoveException("Square " + currPos + " is empty");
+            // a pinned piece may only move along the pin
+            return (this.pinned & Bitboard.bit(from)) == 0 || (Attacks.line(kingPos, from) & Bitboard.bit(to)) != 0;
         }
 
-        Piece piece = Piece.convertFromChar(findPiece(currPos));
-        
-        if (ofOppositeColor(piece)) {
-            throw new IllegalMoveException("Not your turn. You play as " + (this.whiteToMove ? "white" : "black"));
+        long captured = Bitboard.bit(to);
+        if (type == MoveType.EN_PASSANT) {
+            captured = Bitboard.bit(to + (this.whiteToMove ? -8 : 8));
         }
 
-        // check unordinary cases: castling, en passant & promotion
-        if (piece.isKing() && this.castlingRights.containsKey(move)) {
-            if (validateCastling(move)) {
-                this.moveType = MoveType.CASTLING;
+        long occupancy = (this.occupied ^ Bitboard.bit(from) ^ captured) | Bitboard.bit(to);
 
-                return true;
-            }
-        } else if (piece.isPawn()) {
-            if (validateEnPassant(move)) {
-                this.moveType = MoveType.EN_PASSANT;
-                return true;
-            }
+        return (attackersTo(kingPos, occupancy) & this.colors[them] & ~captured) == 0;
+    }
 
-            if (validatePromotion(move)) {
-                this.moveType = MoveType.PROMOTION;
-                return true;
-            }
+    private boolean isKingInCheck(int color) {
+        int kingPos = findKing(color);
+
+        return kingPos != Bitboard.NO_SQUARE && this.attackMap.isAttacked(color ^ 1, kingPos);
+    }
+
+    // Stops at the first legal move found, which in most positions is one of the first few tried.
+    // Castling is left out: whenever it is legal, so is the king's step towards the rook
+    private boolean hasLegalMove() {
+        int us = us();
+        int kingPos = findKing(us);
+
+        if (kingPos == Bitboard.NO_SQUARE) return true;
+
+        updateCheckInfo();
+
+        for (long targets = Attacks.kingAttacks(kingPos) & ~this.colors[us]; targets != 0; targets &= targets - 1) {
+            if (isLegal(kingPos, kingPos, Bitboard.first(targets), MoveType.REGULAR)) return true;
         }
 
-        int[] currPosIds = getPosIds(currPos);
-        int[] dstPosIds = getPosIds(dstPos);
-        
-        int[] vector = Piece.getMoveDirection(piece, currPosIds, dstPosIds);
-        if (vector[0] != 0 || vector[1] != 0) {
-            if (Piece.isPatternReccurent(piece)) {
-                if (!hasPiecesInBetween(move)) {
-                    this.moveType = MoveType.REGULAR;
-    
-                    return true;
-                }
-            } else {
-                if (piece.isPawn() && Math.abs(vector[0]) == 2) {
-                    if (!hasPiecesInBetween(move)) {
-                        this.moveType = MoveType.PAWN_TWO_SQUARES;
-                    } else return false;
-                } else {
-                    this.moveType = MoveType.REGULAR;
+        if ((this.checkers & (this.checkers - 1)) != 0) return false;
+
+        int[] list = this.pieceList[us];
+        int forward = this.whiteToMove ? 8 : -8;
+        long startRank = this.whiteToMove ? Bitboard.RANK_2 : Bitboard.RANK_7;
+
+        for (int i = 0; i < this.pieceCount[us]; i++) {
+            int from = list[i];
+            Piece piece = this.squares[from];
+
+            if (from == kingPos) continue;
+
+            if (!piece.isPawn()) {
+                long targets = Attacks.attacks(piece, from, this.occupied) & ~this.colors[us] & this.evasionTargets;
+
+                for (; targets != 0; targets &= targets - 1) {
+                    if (isLegal(kingPos, from, Bitboard.first(targets), MoveType.REGULAR)) return true;
                 }
 
-                return true;
+                continue;
+            }
+
+            int to = from + forward;
+
+            if ((this.occupied & Bitboard.bit(to)) == 0) {
+                if (isLegal(kingPos, from, to, MoveType.REGULAR)) return true;
+
+                if ((startRank & Bitboard.bit(from)) != 0 && (this.occupied & Bitboard.bit(to + forward)) == 0
+                        && isLegal(kingPos, from, to + forward, MoveType.PAWN_TWO_SQUARES)) return true;
+            }
+
+            long attacks = Attacks.pawnAttacks(us, from);
+
+            for (long captures = attacks & this.colors[us ^ 1]; captures != 0; captures &= captures - 1) {
+                if (isLegal(kingPos, from, Bitboard.first(captures), MoveType.REGULAR)) return true;
             }
+
+            if (this.enPassant != Bitboard.NO_SQUARE && (attacks & Bitboard.bit(this.enPassant)) != 0
+                    && this.squares[this.enPassant - forward] == Piece.of(Piece.PAWN, us ^ 1)
+                    && isLegal(kingPos, from, this.enPassant, MoveType.EN_PASSANT)) return true;
         }
 
         return false;
     }
 
-    private ArrayList<int[]> getSquaresInBetween(String move) throws IllegalMoveException {
-        ArrayList<int[]> squares = new ArrayList<>();
-
-        String currPos = getCurrPos(move);
-        String dstPos = getDstPos(move);
-        
-        int[] currPosIds = getPosIds(currPos);
-        int row = currPosIds[0];
-        int col = currPosIds[1];
-
-        int[] dstPosIds = getPosIds(dstPos);
-        int dstRow = dstPosIds[0];
-        int dstCol = dstPosIds[1];
-
-        if (row == dstRow || col == dstCol || ((Math.abs(row - dstRow)) == (Math.abs(col - dstCol)))) {
-            int[] direction = new int[]{
-                row > dstRow ? -1 : row == dstRow ? 0 : 1,
-                col > dstCol ? -1 : col == dstCol ? 0 : 1,
-            };
-            
-            int rowInc = direction[0];
-            int colInc = direction[1];
-    
-            int newRow = row + rowInc;
-            int newCol = col + colInc;
-    
-            while (newCol != dstCol && newRow != dstRow) {
-                squares.add(new int[]{ newRow, newCol });
-    
-                newCol += colInc;
-                newRow += rowInc;
+    // Neither side can ever mate: bare kings, a single minor piece, or bishops all on squares of one color
+    private boolean isInsufficientMaterial() {
+        long heavyPiecesAndPawns = rooksAndQueens() | this.pieces[Piece.p.ordinal()] | this.pieces[Piece.P.ordinal()];
+
+        if (heavyPiecesAndPawns != 0) return false;
+
+        long knights = this.pieces[Piece.n.ordinal()] | this.pieces[Piece.N.ordinal()];
+        long bishops = this.pieces[Piece.b.ordinal()] | this.pieces[Piece.B.ordinal()];
+
+        if (Long.bitCount(knights | bishops) <= 1) return true;
+
+        return knights == 0 && ((bishops & Bitboard.DARK_SQUARES) == 0 || (bishops & ~Bitboard.DARK_SQUARES) == 0);
+    }
+
+    public GameState getGameState() {
+        if (this.positionState == null) {
+            if (!hasLegalMove()) {
+                this.positionState = isInCheck() ? GameState.CHECKMATE : GameState.STALEMATE;
+            } else if (isInsufficientMaterial()) {
+                this.positionState = GameState.INSUFFICIENT_MATERIAL;
+            } else {
+                this.positionState = GameState.ONGOING;
             }
-    
-            return squares;
-        } else {
-            throw new IllegalMoveException("Can only calculate vertiacl/horizontal/diagonal moves");
         }
 
-        // Piece piece = Piece.convertFromChar(findPiece(currPos));
+        // a mate delivered on the last move before the fifty-move limit still counts
+        if (this.positionState != GameState.ONGOING) return this.positionState;
+        if (isThreefoldRepetition()) return GameState.THREEFOLD_REPETITION;
+        if (isFiftyMoveRule()) return GameState.FIFTY_MOVE_RULE;
 
-        // int[] direction = Piece.getMoveDirection(piece, currPosIds, dstPosIds);
-        // if (direction[0] == 0 && direction[1] == 0) {
-        //     throw new IllegalMoveException("Cannot move piece " + piece + " from " + currPos + " to " + dstPos);
-        // }
+        return GameState.ONGOING;
     }
 
-    private boolean hasSquaresUnderAttack(String move) throws IllegalMoveException {
-        boolean[][] checkboard = getCheckBoard();
+    // Plays a move produced by generateLegalMoves without validating it again, unmakeMove takes it back
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        MoveType moveType = Move.type(move);
+
+        Piece captured = moveType == MoveType.EN_PASSANT ? this.squares[to + (this.whiteToMove ? -8 : 8)] : this.squares[to];
+
+        if (this.ply == this.undoStack.length) {
+            this.undoStack = Arrays.copyOf(this.undoStack, this.ply * 2);
+            this.keyHistory = Arrays.copyOf(this.keyHistory, this.ply * 2);
+        }
+
+        this.keyHistory[this.ply] = this.key;
+        this.undoStack[this.ply++] = move
+            | (long)(captured == null ? 0 : captured.ordinal() + 1) << 18
+            | (long)this.castlingRights << 22
+            | (long)(this.enPassant + 1) << 26
+            | (long)Math.min(this.halfmoveClock, 0x3FF) << 33;
+
+        this.key ^= Zobrist.castling(this.castlingRights) ^ enPassantKey();
+
+        this.isCheckInfoValid = false;
+        this.positionState = null;
 
-        String currPos = getCurrPos(move);
-        String dstPos = getDstPos(move);
-        
-        int[] currPosIds = getPosIds(currPos);
-        int[] dstPosIds = getPosIds(dstPos);
+        long changed = Bitboard.bit(from) | Bitboard.bit(to);
+        Piece piece = removePiece(from);
 
-        ArrayList<int[]> coords = getSquaresInBetween(move);
-        coords.add(currPosIds);
-        coords.add(dstPosIds);
+        if (captured != null) {
+            int capturedPos = moveType == MoveType.EN_PASSANT ? to + (this.whiteToMove ? -8 : 8) : to;
 
-        for (int[] coord : coords) {
-            if (checkboard[coord[0]][coord[1]]) return true;
+            removePiece(capturedPos);
+            changed |= Bitboard.bit(capturedPos);
         }
 
-        return false;
-    }
+        if (moveType == MoveType.CASTLING) {
+            int[] castling = castlingSquares[findCastling(from, to)];
 
-    private boolean hasPiecesInBetween(String move) throws IllegalMoveException {
-        for (int[] coords : getSquaresInBetween(move)) {
-            if (pieceExists(coords[0], coords[1])) return true;
+            putPiece(removePiece(castling[2]), castling[3]);
+            changed |= Bitboard.bit(castling[2]) | Bitboard.bit(castling[3]);
         }
-        
-        return false;
-    }
 
-    private boolean isKingInCheck() {
-        boolean[][] checkBoard = getCheckBoard();
+        if (moveType == MoveType.PROMOTION) {
+            piece = Piece.of(Move.promotion(move), us());
+        }
+
+        putPiece(piece, to);
+
+        this.halfmoveClock = captured != null || piece.isPawn() || moveType == MoveType.PROMOTION ? 0 : this.halfmoveClock + 1;
+        this.castlingRights &= castlingMask[from] & castlingMask[to];
+        this.enPassant = moveType == MoveType.PAWN_TWO_SQUARES ? (from + to) / 2 : Bitboard.NO_SQUARE;
+        this.whiteToMove = !this.whiteToMove;
+
+        this.key ^= Zobrist.castling(this.castlingRights) ^ enPassantKey() ^ Zobrist.side();
 
-        String kingPos = findKing(this.whiteToMove);
-        int[] kingPosIds = getPosIds(kingPos);
+        this.attackMap.update(this.squares, this.occupied, sliders(), changed);
 
-        return checkBoard[kingPosIds[0]][kingPosIds[1]];
+        if (this.isPublishingSnapshots) publishSnapshot();
     }
 
-    private boolean isKingMated() {
-        return isKingMated(true) || isKingMated(false);
+    // Takes back the last move played on this board, returns false if there is nothing to take back
+    public boolean unmakeMove() {
+        if (this.ply == 0) return false;
+
+        long undo = this.undoStack[--this.ply];
+        int move = (int)(undo & 0x3FFFF);
+        int captured = (int)(undo >>> 18) & 0xF;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        MoveType moveType = Move.type(move);
+
+        this.whiteToMove = !this.whiteToMove;
+        this.castlingRights = (int)(undo >>> 22) & 0xF;
+        this.enPassant = (int)(undo >>> 26 & 0x7F) - 1;
+        this.halfmoveClock = (int)(undo >>> 33) & 0x3FF;
+
+        this.isCheckInfoValid = false;
+        this.positionState = null;
+
+        long changed = Bitboard.bit(from) | Bitboard.bit(to);
+        Piece piece = removePiece(to);
+
+        if (moveType == MoveType.PROMOTION) {
+            piece = Piece.of(Piece.PAWN, us());
+        }
+
+        putPiece(piece, from);
+
+        if (moveType == MoveType.CASTLING) {
+            int[] castling = castlingSquares[findCastling(from, to)];
+
+            putPiece(removePiece(castling[3]), castling[2]);
+            changed |= Bitboard.bit(castling[2]) | Bitboard.bit(castling[3]);
+        }
+
+        if (captured != 0) {
+            int capturedPos = moveType == MoveType.EN_PASSANT ? to + (this.whiteToMove ? -8 : 8) : to;
+
+            putPiece(Piece.of(captured - 1), capturedPos);
+            changed |= Bitboard.bit(capturedPos);
+        }
+
+        this.attackMap.update(this.squares, this.occupied, sliders(), changed);
+
+        // the saved key also covers castling rights, en passant and side to move
+        this.key = this.keyHistory[this.ply];
+
+        if (this.isPublishingSnapshots) publishSnapshot();
+
+        return true;
     }
 
-    private boolean isKingMated(boolean whiteKing) {
-        boolean[][] checkBoard = getCheckBoard(whiteKing);
+    // Tells what makes the position impossible to reach in a game, null if nothing was found
+    public String findIllegality() {
+        if (Long.bitCount(this.pieces[Piece.K.ordinal()]) != 1 || Long.bitCount(this.pieces[Piece.k.ordinal()]) != 1) {
+            return "each side should have exactly one king";
+        }
+
+        if (isKingInCheck(us() ^ 1)) return "side not to move is in check";
 
-        String kingPos = findKing(whiteKing);
+        updateCheckInfo();
 
-        int[] kingPosIds = getPosIds(kingPos);
+        if (Long.bitCount(this.checkers) > 2) return "king is attacked by more than two pieces";
 
-        List<int[]> moves = Piece.getAttackPattern(Piece.convertFromChar(findPiece(kingPos)));
-        List<int[]> positions = moves.stream().map(vector ->
-            new int[]{
-                kingPosIds[0] + vector[0],
-                kingPosIds[1] + vector[1],
+        if (this.enPassant != Bitboard.NO_SQUARE) {
+            int forward = this.whiteToMove ? -8 : 8;
+
+            if (this.squares[this.enPassant + forward] != Piece.of(Piece.PAWN, us() ^ 1)
+                    || this.squares[this.enPassant] != null || this.squares[this.enPassant - forward] != null) {
+                return "en passant square without a pawn which has just moved two squares";
             }
-        ).filter(coord -> coord[0] >= 0 && coord[0] < 8 && coord[1] >= 0 && coord[1] < 8).collect(Collectors.toList());
-        positions.add(kingPosIds);
+        }
+
+        return null;
+    }
 
-        return positions.stream().allMatch(coord -> checkBoard[coord[0]][coord[1]]);
+    // The side to move is in check
+    public boolean isInCheck() {
+        return isKingInCheck(us());
     }
 
-    private char[][] makeMove(String move, MoveType moveType) {
-        char[][] copy = Arrays.copyOf(this.board, this.board.length);
+    // The same position occurred twice before, only positions since the last capture or pawn move can repeat
+    public boolean isThreefoldRepetition() {
+        int repetitions = 0;
+        int oldest = Math.max(0, this.ply - this.halfmoveClock);
 
-        String currPos = getCurrPos(move);
-        String dstPos = getDstPos(move);
-        
-        int[] currPosIds = getPosIds(currPos);
-        int[] dstPosIds = getPosIds(dstPos);
+        for (int i = this.ply - 2; i >= oldest; i -= 2) {
+            if (this.keyHistory[i] == this.key && ++repetitions == 2) return true;
+        }
+
+        return false;
+    }
+
+    public boolean isFiftyMoveRule() {
+        return this.halfmoveClock >= 100;
+    }
+
+    // Finds the legal move written in standard algebraic notation, e.g. Nbd7, exd6, e8=Q+ or O-O.
+    // Returns the packed move with its type resolved, NONE if no legal move or more than one matches
+    public int parseSan(CharSequence san) {
+        int length = san.length();
+
+        // check, mate and annotation marks tell nothing about the move
+        while (length > 0 && "+#!?".indexOf(san.charAt(length - 1)) >= 0) {
+            length--;
+        }
+
+        if (length < 2) return Move.NONE;
 
-        char piece = findPiece(currPos);
+        int count = generateLegalMoves(this.sanMoves);
 
-        if (moveType.equals(MoveType.REGULAR) || moveType.equals(MoveType.PAWN_TWO_SQUARES)) {            
-            copy[currPosIds[0]][currPosIds[1]] = '\0';
-            copy[dstPosIds[0]][dstPosIds[1]] = piece;
+        if (san.charAt(0) == 'O' || san.charAt(0) == '0') {
+            int col = length == 3 ? 6 : length == 5 ? 2 : -1;
 
-            if (moveType.equals(MoveType.PAWN_TWO_SQUARES)) {
-                this.enPassant = dstPos;
+            for (int i = 0; i < count; i++) {
+                int move = this.sanMoves[i];
+
+                if (Move.type(move) == MoveType.CASTLING && Bitboard.col(Move.to(move)) == col) return move;
             }
-            
-            if (Piece.convertFromChar(piece).isRook()) {
-                for (Object key : this.castlingRights.keySet()) {
-                    String rookPos = this.castlingRights.getProperty(key.toString());
-                    if (rookPos.startsWith(currPos)) {
-                        this.castlingRights.remove(key);
-                        break;
-                    }
-                }
+
+            return Move.NONE;
+        }
+
+        int promotion = 0;
+        char last = san.charAt(length - 1);
+
+        if (last == 'Q' || last == 'R' || last == 'B' || last == 'N') {
+            promotion = Piece.convertFromChar(Character.toLowerCase(last)).type();
+            length -= length > 2 && san.charAt(length - 2) == '=' ? 2 : 1;
+        }
+
+        if (length < 2) return Move.NONE;
+
+        int to = Bitboard.parseSquare(san, length - 2);
+        char first = san.charAt(0);
+        int type = first == 'K' || first == 'Q' || first == 'R' || first == 'B' || first == 'N'
+            ? Piece.convertFromChar(Character.toLowerCase(first)).type() : Piece.PAWN;
+
+        if (to == Bitboard.NO_SQUARE) return Move.NONE;
+
+        // file and rank between the piece letter and the destination tell apart pieces which can reach the same square
+        int fromCol = -1;
+        int fromRow = -1;
+
+        for (int i = type == Piece.PAWN ? 0 : 1; i < length - 2; i++) {
+            char ch = san.charAt(i);
+
+            if (ch >= 'a' && ch <= 'h') {
+                fromCol = ch - 'a';
+            } else if (ch >= '1' && ch <= '8') {
+                fromRow = ch - '1';
+            } else if (ch != 'x' && ch != '-') {
+                return Move.NONE;
             }
         }
 
-        if (moveType.equals(MoveType.CASTLING)) {
-            String rookMove = this.castlingRights.getProperty(move);
-            copy = makeMove(rookMove, MoveType.REGULAR);
+        int found = Move.NONE;
+
+        for (int i = 0; i < count; i++) {
+            int move = this.sanMoves[i];
+            int from = Move.from(move);
 
-            copy[currPosIds[0]][currPosIds[1]] = '\0';
-            copy[dstPosIds[0]][dstPosIds[1]] = piece;
+            if (Move.to(move) != to || this.squares[from].type() != type || Move.promotion(move) != promotion) continue;
+            if (Move.type(move) == MoveType.CASTLING || (fromCol >= 0 && Bitboard.col(from) != fromCol)) continue;
+            if (fromRow >= 0 && Bitboard.row(from) != fromRow) continue;
+            if (found != Move.NONE) return Move.NONE;
 
-            this.castlingRights.remove(move);
+            found = move;
         }
 
-        if (moveType.equals(MoveType.PROMOTION)) {
-            char promoteTo = move.charAt(move.length() - 1);
-            promoteTo = whiteToMove ? Character.toUpperCase(promoteTo) : promoteTo;
+        return found;
+    }
 
-            copy[currPosIds[0]][currPosIds[1]] = '\0';
-            copy[dstPosIds[0]][dstPosIds[1]] = promoteTo;
+    // Validates and plays a move in long algebraic notation, e.g. e2e4 or e7e8q.
+    // Returns the packed move with its type resolved
+    public int updateChessboard(CharSequence move) throws IllegalMoveException {
+        if (isGameOver()) {
+            throw new IllegalMoveException("Game over");
         }
 
-        if (moveType.equals(MoveType.EN_PASSANT)) {            
-            int[] enPassantIds = getPosIds(this.enPassant);
+        int parsed = Move.parse(move);
 
-            copy[currPosIds[0]][currPosIds[1]] = '\0';
-            copy[dstPosIds[0]][dstPosIds[1]] = piece;
-            copy[enPassantIds[0]][enPassantIds[1]] = piece;
+        if (parsed == Move.NONE) {
+            throw new IllegalMoveException("Move not recognized");
         }
 
-        if (!moveType.equals(MoveType.PAWN_TWO_SQUARES)) {
-            this.enPassant = "";
+        return play(parsed);
+    }
+
+    // Validates and plays a packed move, only its squares and promotion are taken into account.
+    // Returns the packed move with its type resolved
+    public int updateChessboard(int move) throws IllegalMoveException {
+        if (isGameOver()) {
+            throw new IllegalMoveException("Game over");
         }
 
-        return copy;
+        return play(move);
     }
 
-    public void updateChessboard(String move) throws IllegalMoveException {
-        if (this.isMate) {
-            throw new IllegalMoveException("Game over"); 
+    private int play(int move) throws IllegalMoveException {
+        if (!validateMove(move)) {
+            throw new IllegalMoveException("Illegal move " + Move.toString(move));
         }
 
-        if (validateMove(move)) {
-            char[][] oldBoard = this.board;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int kingPos = findKing(us());
 
-            this.board = makeMove(move, this.moveType);
+        // castling has already checked the squares the king passes
+        if (this.moveType != MoveType.CASTLING && kingPos != Bitboard.NO_SQUARE && !isLegal(kingPos, from, to, this.moveType)) {
+            throw new IllegalMoveException("King is in check");
+        }
 
-            if (isKingInCheck()) {
-                this.isMate = isKingMated();
-                this.board = oldBoard;
+        int resolved = Move.of(from, to, this.moveType, Move.promotion(move));
 
-                throw new IllegalMoveException("King is in check");
-            }
+        makeMove(resolved);
 
-            this.whiteToMove = !this.whiteToMove;
-        } else {
-            throw new IllegalMoveException("Illegal move " + move);
-        }
+        return resolved;
     }
 
     public boolean isGameOver() {
-        return this.isMate;
+        return getGameState() != GameState.ONGOING;
     }
 
     @Override
     public String toString() {
         String chessboard = "";
+        char[][] board = getBoard();
 
         chessboard += "--Chessboard--\n";
         for (int i = board.length - 1; i >= 0; i--) {
@@ -579,9 +1055,9 @@ public class Chessboard {
         }
 
         chessboard += "this.whiteTomove=" + this.whiteToMove;
-        chessboard += ";this.enPassant=" + this.enPassant;
-        chessboard += ";this.castlingRights=" + this.castlingRights;
-        chessboard += ";this.isMate=" + this.isMate;
+        chessboard += ";this.enPassant=" + getEnPassant();
+        chessboard += ";this.castlingRights=" + getCastlingRights();
+        chessboard += ";this.positionState=" + this.positionState;
         chessboard += ";this.moveType=" + this.moveType;
         chessboard += ";";
 
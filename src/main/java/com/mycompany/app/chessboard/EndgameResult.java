@@ -0,0 +1,13 @@
+package com.mycompany.app.chessboard;
+
+// Outcome of a position with perfect play, for the side to move
+public enum EndgameResult {
+    WIN,
+    DRAW,
+    LOSS;
+
+    // The same outcome seen by the other side
+    public EndgameResult opposite() {
+        return this == WIN ? LOSS : this == LOSS ? WIN : DRAW;
+    }
+}
@@ -1,21 +1,250 @@
 package com.mycompany.app.chessboard;
 
-public class Fen {
-    private String fen;
+import java.util.Arrays;
 
-    public Fen(String fen) {    
-        this.fen = fen;
+// A position in Forsyth-Edwards Notation, parsed and validated once when created. The text is read in a single
+// pass without splitting it into substrings. Castling rights may be written as KQkq or Shredder-style rook files
+// (AHah); halfmove clock and fullmove number may be left out and default to 0 and 1
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w AHah -";
+
+    private final String fen;
+    // Piece ordinal + 1 per square, 0 for an empty square
+    private final byte[] squares = new byte[64];
+    private boolean whiteToMove;
+    private int castlingRights;
+    private boolean hasIgnoredCastlingRights;
+    // Square behind a pawn which has just moved two squares, NO_SQUARE otherwise
+    private int enPassant = Bitboard.NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    // Position in the text the parser is at
+    private int index;
+
+    public Fen(CharSequence fen) {
+        this.fen = fen.toString();
+
+        parse(fen);
     }
 
-    public Fen() {    
-        set("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w AHah -");
+    public Fen() {
+        this(START_POSITION);
     }
 
     public String get() {
         return this.fen;
     }
 
-    public void set(String fen) {
-        this.fen = fen;
+    private void parse(CharSequence fen) {
+        parseBoard(fen);
+        expectSpace(fen);
+
+        char side = next(fen);
+        if (side != 'w' && side != 'b') throw invalid("side to move should be w or b");
+        this.whiteToMove = side == 'w';
+
+        expectSpace(fen);
+        parseCastling(fen);
+        expectSpace(fen);
+        parseEnPassant(fen);
+
+        if (this.index < fen.length()) {
+            expectSpace(fen);
+            this.halfmoveClock = parseNumber(fen, 0);
+            expectSpace(fen);
+            this.fullmoveNumber = parseNumber(fen, 1);
+        }
+
+        if (this.index != fen.length()) throw invalid("unexpected text at " + this.index);
+    }
+
+    // Ranks come from the 8th down to the 1st, squares of a rank from the a file to the h file
+    private void parseBoard(CharSequence fen) {
+        int[] kings = new int[2];
+
+        for (int row = 7; row >= 0; row--) {
+            int col = 0;
+
+            while (col < 8) {
+                char ch = next(fen);
+
+                if (ch >= '1' && ch <= '8') {
+                    col += ch - '0';
+                    continue;
+                }
+
+                Piece piece;
+
+                try {
+                    piece = Piece.convertFromChar(ch);
+                } catch (IllegalArgumentException e) {
+                    throw invalid("unexpected '" + ch + "' in rank " + (row + 1));
+                }
+
+                if (piece.isPawn() && (row == 0 || row == 7)) throw invalid("pawn on the first or last rank");
+                if (piece.isKing() && ++kings[piece.color()] > 1) throw invalid("more than one king of a color");
+
+                this.squares[Bitboard.square(row, col++)] = (byte)(piece.ordinal() + 1);
+            }
+
+            if (col > 8) throw invalid("rank " + (row + 1) + " has more than 8 squares");
+            if (row > 0 && next(fen) != '/') throw invalid("ranks should be separated by /");
+        }
+    }
+
+    // Rights are only kept when king and rook are still on their initial squares, rook files other than
+    // the a and h files (Chess960) are not supported and ignored
+    private void parseCastling(CharSequence fen) {
+        if (peek(fen) == '-') {
+            this.index++;
+            return;
+        }
+
+        while (this.index < fen.length() && peek(fen) != ' ') {
+            char ch = next(fen);
+            int color = Character.isUpperCase(ch) ? Chessboard.WHITE : Chessboard.BLACK;
+            char lower = Character.toLowerCase(ch);
+            int right;
+
+            if (lower == 'k') {
+                right = color == Chessboard.WHITE ? 0 : 2;
+            } else if (lower == 'q') {
+                right = color == Chessboard.WHITE ? 1 : 3;
+            } else if (lower >= 'a' && lower <= 'h') {
+                // a rook file, the king's side is found from the file of the king
+                int kingCol = Bitboard.col(Chessboard.castlingSquares[color == Chessboard.WHITE ? 0 : 2][0]);
+                boolean kingside = lower - 'a' > kingCol;
+
+                right = (color == Chessboard.WHITE ? 0 : 2) + (kingside ? 0 : 1);
+
+                if (Bitboard.col(Chessboard.castlingSquares[right][2]) != lower - 'a') {
+                    this.hasIgnoredCastlingRights = true;
+                    continue;
+                }
+            } else {
+                throw invalid("unexpected '" + ch + "' in castling rights");
+            }
+
+            int[] castling = Chessboard.castlingSquares[right];
+
+            if (piece(castling[0]) == Piece.of(Piece.KING, color) && piece(castling[2]) == Piece.of(Piece.ROOK, color)) {
+                this.castlingRights |= 1 << right;
+            } else {
+                this.hasIgnoredCastlingRights = true;
+            }
+        }
+    }
+
+    private void parseEnPassant(CharSequence fen) {
+        if (peek(fen) == '-') {
+            this.index++;
+            return;
+        }
+
+        int square = Bitboard.parseSquare(fen, this.index);
+        int expectedRow = this.whiteToMove ? 5 : 2;
+
+        if (square == Bitboard.NO_SQUARE || Bitboard.row(square) != expectedRow) throw invalid("wrong en passant square");
+
+        this.enPassant = square;
+        this.index += 2;
+    }
+
+    private int parseNumber(CharSequence fen, int min) {
+        int start = this.index;
+        int number = 0;
+
+        while (this.index < fen.length() && Character.isDigit(fen.charAt(this.index)) && this.index - start < 9) {
+            number = number * 10 + fen.charAt(this.index++) - '0';
+        }
+
+        if (this.index == start || number < min) throw invalid("wrong move counter");
+
+        return number;
+    }
+
+    private void expectSpace(CharSequence fen) {
+        if (next(fen) != ' ') throw invalid("fields should be separated by a single space");
+    }
+
+    private char peek(CharSequence fen) {
+        if (this.index >= fen.length()) throw invalid("text ends too early");
+
+        return fen.charAt(this.index);
+    }
+
+    private char next(CharSequence fen) {
+        char ch = peek(fen);
+
+        this.index++;
+
+        return ch;
+    }
+
+    private IllegalArgumentException invalid(String reason) {
+        return new IllegalArgumentException("Invalid FEN " + this.fen + ": " + reason);
+    }
+
+    Piece piece(int square) {
+        return this.squares[square] == 0 ? null : Piece.of(this.squares[square] - 1);
+    }
+
+    int castlingRights() {
+        return this.castlingRights;
+    }
+
+    int enPassant() {
+        return this.enPassant;
+    }
+
+    // Piece letter on the square, '\0' if it is empty
+    public char getPiece(int row, int col) {
+        Piece piece = piece(Bitboard.square(row, col));
+
+        return piece == null ? '\0' : piece.toChar();
+    }
+
+    public boolean getSideToMove() {
+        return this.whiteToMove;
+    }
+
+    public boolean canCastle(boolean white, boolean kingside) {
+        return (this.castlingRights & 1 << ((white ? 0 : 2) + (kingside ? 0 : 1))) != 0;
+    }
+
+    // Some castling rights were given for a king or rook which is not on its initial square
+    public boolean hasIgnoredCastlingRights() {
+        return this.hasIgnoredCastlingRights;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return this.fullmoveNumber;
+    }
+
+    // Positions are equal whatever notation their castling rights were written in
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Fen)) return false;
+
+        Fen fen = (Fen)other;
+
+        return Arrays.equals(this.squares, fen.squares) && this.whiteToMove == fen.whiteToMove
+            && this.castlingRights == fen.castlingRights && this.enPassant == fen.enPassant
+            && this.halfmoveClock == fen.halfmoveClock && this.fullmoveNumber == fen.fullmoveNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.squares) * 31 + (this.castlingRights << 8 | (this.enPassant + 1) << 1 | (this.whiteToMove ? 1 : 0));
+    }
+
+    @Override
+    public String toString() {
+        return this.fen;
     }
 }
@@ -0,0 +1,10 @@
+package com.mycompany.app.chessboard;
+
+public enum GameState {
+    ONGOING,
+    CHECKMATE,
+    STALEMATE,
+    INSUFFICIENT_MATERIAL,
+    THREEFOLD_REPETITION,
+    FIFTY_MOVE_RULE;
+}
@@ -0,0 +1,93 @@
+package com.mycompany.app.chessboard;
+
+// Moves packed into a single int, so move lists are plain int arrays:
+// bits 0-5 from square, bits 6-11 destination square, bits 12-14 promotion piece type,
+// bits 15-17 MoveType ordinal + 1 (0 while the type is not known yet)
+public final class Move {
+    public static final int NONE = 0;
+
+    // More than any chess position has legal moves (218), enough for a move buffer
+    public static final int MAX_MOVES = 256;
+
+    private static final MoveType[] types = MoveType.values();
+    private static final char[] promotions = new char[]{ '\0', 'r', 'n', 'b', 'q' };
+
+    private Move() {}
+
+    static int of(int from, int to, MoveType type) {
+        return from | to << 6 | (type.ordinal() + 1) << 15;
+    }
+
+    static int of(int from, int to, MoveType type, int promotion) {
+        return of(from, to, type) | promotion << 12;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    // Piece type to promote to, see Piece.ROOK etc, 0 if the move is not a promotion
+    static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static char promotionChar(int move) {
+        return promotions[promotion(move)];
+    }
+
+    // Parses long algebraic notation such as e2e4 or e7e8q without allocating.
+    // The move type is left unresolved, since it depends on the position; returns NONE for malformed input
+    public static int parse(CharSequence text) {
+        int length = text.length();
+
+        if (length != 4 && length != 5) return NONE;
+
+        int from = Bitboard.parseSquare(text, 0);
+        int to = Bitboard.parseSquare(text, 2);
+
+        if (from == Bitboard.NO_SQUARE || to == Bitboard.NO_SQUARE || from == to) return NONE;
+
+        int promotion = 0;
+
+        if (length == 5) {
+            char promoteTo = text.charAt(4);
+
+            for (int type = Piece.ROOK; type <= Piece.QUEEN; type++) {
+                if (promotions[type] == promoteTo) promotion = type;
+            }
+
+            if (promotion == 0) return NONE;
+        }
+
+        return from | to << 6 | promotion << 12;
+    }
+
+    public static MoveType type(int move) {
+        int type = (move >>> 15) & 0x7;
+
+        return type == 0 ? null : types[type - 1];
+    }
+
+    // Long algebraic notation used by UCI, e.g. e2e4 or e7e8q
+    public static String toString(int move) {
+        return appendTo(new StringBuilder(5), move).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder builder, int move) {
+        int from = from(move);
+        int to = to(move);
+
+        builder.append((char)('a' + Bitboard.col(from))).append((char)('1' + Bitboard.row(from)));
+        builder.append((char)('a' + Bitboard.col(to))).append((char)('1' + Bitboard.row(to)));
+
+        if (promotion(move) != 0) {
+            builder.append(promotionChar(move));
+        }
+
+        return builder;
+    }
+}
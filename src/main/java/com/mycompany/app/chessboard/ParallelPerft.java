@@ -0,0 +1,132 @@
+package com.mycompany.app.chessboard;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Perft split over a fork/join pool: every move of a deep enough node becomes a task with its own copy
+// of the board, shallow subtrees are walked by a single worker. Counts of the subtasks are added up
+// in move order, so the result does not depend on scheduling
+public final class ParallelPerft implements AutoCloseable {
+    // Subtrees up to this depth are too small to be worth a task of their own
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    // Shared subtree counts, null when running without a hash table
+    private final PerftTable table;
+    private final ThreadLocal<int[][]> buffers = ThreadLocal.withInitial(() -> new int[SEQUENTIAL_DEPTH + 1][Move.MAX_MOVES]);
+
+    public ParallelPerft(int threads, int hashMegabytes) {
+        this.pool = new ForkJoinPool(threads);
+        this.table = hashMegabytes > 0 ? new PerftTable(hashMegabytes) : null;
+    }
+
+    public long perft(Chessboard chessboard, int depth) {
+        if (depth == 0) return 1;
+
+        return this.pool.invoke(new Subtree(new Chessboard(chessboard), depth));
+    }
+
+    // Fills node counts for every root move and returns the number of root moves
+    public int divide(Chessboard chessboard, int depth, int[] rootMoves, long[] counts) {
+        int count = chessboard.generateLegalMoves(rootMoves);
+        Subtree[] subtrees = new Subtree[count];
+
+        for (int i = 0; i < count; i++) {
+            subtrees[i] = new Subtree(afterMove(chessboard, rootMoves[i]), depth - 1);
+            this.pool.execute(subtrees[i]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            counts[i] = subtrees[i].join();
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    private static Chessboard afterMove(Chessboard chessboard, int move) {
+        Chessboard copy = new Chessboard(chessboard);
+
+        copy.makeMove(move);
+
+        return copy;
+    }
+
+    private long walk(Chessboard chessboard, int depth, int[][] buffers) {
+        int[] moves = buffers[depth];
+        int count = chessboard.generateLegalMoves(moves);
+
+        if (depth == 1) return count;
+
+        long nodes = probe(chessboard, depth);
+
+        if (nodes >= 0) return nodes;
+
+        nodes = 0;
+
+        for (int i = 0; i < count; i++) {
+            chessboard.makeMove(moves[i]);
+            nodes += walk(chessboard, depth - 1, buffers);
+            chessboard.unmakeMove();
+        }
+
+        store(chessboard, depth, nodes);
+
+        return nodes;
+    }
+
+    private long probe(Chessboard chessboard, int depth) {
+        return this.table == null ? -1 : this.table.probe(chessboard.getKey(), depth);
+    }
+
+    private void store(Chessboard chessboard, int depth, long nodes) {
+        if (this.table != null) this.table.store(chessboard.getKey(), depth, nodes);
+    }
+
+    // The board belongs to the task, it is neither shared nor touched by anyone else
+    private final class Subtree extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Chessboard chessboard;
+        private final int depth;
+
+        Subtree(Chessboard chessboard, int depth) {
+            this.chessboard = chessboard;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.depth == 0) return 1L;
+            if (this.depth <= SEQUENTIAL_DEPTH) return walk(this.chessboard, this.depth, buffers.get());
+
+            long nodes = probe(this.chessboard, this.depth);
+
+            if (nodes >= 0) return nodes;
+
+            int[] moves = new int[Move.MAX_MOVES];
+            int count = this.chessboard.generateLegalMoves(moves);
+            Subtree[] subtrees = new Subtree[count];
+
+            for (int i = 0; i < count; i++) {
+                subtrees[i] = new Subtree(afterMove(this.chessboard, moves[i]), this.depth - 1);
+            }
+
+            invokeAll(subtrees);
+
+            nodes = 0;
+
+            for (Subtree subtree : subtrees) {
+                nodes += subtree.join();
+            }
+
+            store(this.chessboard, this.depth, nodes);
+
+            return nodes;
+        }
+    }
+}
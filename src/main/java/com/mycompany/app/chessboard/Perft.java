@@ -0,0 +1,48 @@
+package com.mycompany.app.chessboard;
+
+// Counts the leaf nodes of the legal move tree down to a given depth. The counts of well known
+// positions are published, which makes perft the reference check for move generation
+public final class Perft {
+    private final int[][] moves;
+
+    // Move buffers are allocated once per ply, walking the tree itself allocates nothing
+    public Perft(int maxDepth) {
+        this.moves = new int[maxDepth + 1][Move.MAX_MOVES];
+    }
+
+    public long perft(Chessboard chessboard, int depth) {
+        if (depth == 0) return 1;
+
+        return walk(chessboard, depth, 0);
+    }
+
+    // Fills node counts for every root move and returns the number of root moves
+    public int divide(Chessboard chessboard, int depth, int[] rootMoves, long[] counts) {
+        int count = chessboard.generateLegalMoves(rootMoves);
+
+        for (int i = 0; i < count; i++) {
+            chessboard.makeMove(rootMoves[i]);
+            counts[i] = depth <= 1 ? 1 : walk(chessboard, depth - 1, 1);
+            chessboard.unmakeMove();
+        }
+
+        return count;
+    }
+
+    private long walk(Chessboard chessboard, int depth, int ply) {
+        int[] buffer = this.moves[ply];
+        int count = chessboard.generateLegalMoves(buffer);
+
+        if (depth == 1) return count;
+
+        long nodes = 0;
+
+        for (int i = 0; i < count; i++) {
+            chessboard.makeMove(buffer[i]);
+            nodes += walk(chessboard, depth - 1, ply + 1);
+            chessboard.unmakeMove();
+        }
+
+        return nodes;
+    }
+}
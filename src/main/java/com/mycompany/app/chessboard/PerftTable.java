@@ -0,0 +1,43 @@
+package com.mycompany.app.chessboard;
+
+// Subtree node counts shared by all perft workers, indexed by position key and depth.
+// Entries are written without locks: each one stores the key XOR the count next to the count,
+// so an entry torn by two threads writing at once no longer matches its key and reads as a miss
+final class PerftTable {
+    // Two longs per entry have to fit into one Java array
+    private static final long MAX_ENTRIES = 1L << 29;
+
+    private final long[] entries;
+    private final int mask;
+
+    PerftTable(int megabytes) {
+        // two longs per entry, the number of entries is rounded down to a power of two
+        int size = Integer.highestOneBit(Math.max(1, (int)Math.min(MAX_ENTRIES, megabytes * (1L << 20) / 16)));
+
+        this.entries = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    private static long check(long key, int depth) {
+        return key ^ depth * 0x9E3779B97F4A7C15L;
+    }
+
+    // Returns -1 when the subtree is not in the table
+    long probe(long key, int depth) {
+        long check = check(key, depth);
+        int index = ((int)(check >>> 32) & this.mask) * 2;
+
+        long stored = this.entries[index];
+        long nodes = this.entries[index + 1];
+
+        return (stored ^ nodes) == check ? nodes : -1;
+    }
+
+    void store(long key, int depth, long nodes) {
+        long check = check(key, depth);
+        int index = ((int)(check >>> 32) & this.mask) * 2;
+
+        this.entries[index] = check ^ nodes;
+        this.entries[index + 1] = nodes;
+    }
+}
@@ -15,7 +15,22 @@ enum Piece {
     private static EnumMap<Piece, ArrayList<int[]>> attackPattern;
     private static EnumMap<Piece, ArrayList<int[]>> direction;
 
+    // Piece types as they are laid out in the enum, two colors per type: black first, white second
+    static final int PAWN = 0;
+    static final int ROOK = 1;
+    static final int KNIGHT = 2;
+    static final int BISHOP = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+
+    private static final Piece[] values = Piece.values();
+    private static final Piece[] fromChar = new Piece[128];
+
     static {
+        for (Piece piece : values) {
+            fromChar[piece.name().charAt(0)] = piece;
+        }
+
         attackPattern = new EnumMap<>(Piece.class);
         direction = new EnumMap<>(Piece.class);
 
@@ -36,7 +51,7 @@ enum Piece {
 
                     } else {
                         attackPatterns.add(new int[]{1, 1});
-                        attackPatterns.add(new int[]{-1, 1});
+                        attackPatterns.add(new int[]{1, -1});
                         
                         movePatterns.addAll(attackPatterns);
                         movePatterns.add(new int[]{2, 0});
@@ -116,7 +131,21 @@ enum Piece {
     }
 
     public static Piece convertFromChar(char piece) {
-        return Piece.valueOf(Character.toString(piece));
+        Piece converted = piece < fromChar.length ? fromChar[piece] : null;
+
+        if (converted == null) {
+            throw new IllegalArgumentException("No piece for " + piece);
+        }
+
+        return converted;
+    }
+
+    static Piece of(int type, int color) {
+        return values[type << 1 | color];
+    }
+
+    static Piece of(int ordinal) {
+        return values[ordinal];
     }
 
     public static boolean isPatternReccurent(Piece piece) {
@@ -170,6 +199,23 @@ enum Piece {
         return moveDirection;
     }
 
+    // 1 for white, 0 for black
+    int color() {
+        return ordinal() & 1;
+    }
+
+    int type() {
+        return ordinal() >> 1;
+    }
+
+    public boolean isWhite() {
+        return color() == 1;
+    }
+
+    public char toChar() {
+        return name().charAt(0);
+    }
+
     public boolean isKing() {
         return this.equals(Piece.k) || this.equals(Piece.K);
     }
@@ -0,0 +1,93 @@
+package com.mycompany.app.chessboard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Position keys of the Polyglot opening book format. They are built like Zobrist keys, but from the table
+// of 781 random numbers published with the format, since every .bin book is sorted by those keys:
+// 768 piece-square numbers, 4 for castling rights, 8 for en passant files and 1 for white to move
+public final class PolyglotKey {
+    public static final int RANDOM_COUNT = 781;
+
+    private static final int CASTLING = 768;
+    private static final int EN_PASSANT = 772;
+    private static final int TURN = 780;
+    // Polyglot piece kind for every Piece ordinal, kinds go pawn, knight, bishop, rook, queen, king with black first
+    private static final int[] kinds = new int[12];
+
+    // Classpath resource holding the table in hexadecimal, as printed in the format description, shipped with the jar
+    private static final String STANDARD_TABLE = "/polyglot/random64.txt";
+
+    private final long[] random;
+
+    static {
+        int[] typeOrder = new int[]{ 0, 3, 1, 2, 4, 5 };
+
+        for (int ordinal = 0; ordinal < kinds.length; ordinal++) {
+            Piece piece = Piece.of(ordinal);
+
+            kinds[ordinal] = typeOrder[piece.type()] * 2 + piece.color();
+        }
+    }
+
+    public PolyglotKey(long[] random) {
+        if (random.length != RANDOM_COUNT) {
+            throw new IllegalArgumentException("Polyglot keys need " + RANDOM_COUNT + " random numbers, got " + random.length);
+        }
+
+        this.random = random.clone();
+    }
+
+    // Reads hexadecimal numbers such as 0x9D39247E33776D41, anything around them like U64( ) or commas is skipped,
+    // so the C array of the format description can be used as it is
+    public static PolyglotKey load(InputStream in) throws IOException {
+        String text = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        Matcher matcher = Pattern.compile("0[xX]([0-9a-fA-F]{1,16})").matcher(text);
+        long[] random = new long[RANDOM_COUNT];
+        int count = 0;
+
+        while (matcher.find()) {
+            if (count == RANDOM_COUNT) throw new IOException("More than " + RANDOM_COUNT + " random numbers");
+
+            random[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+        }
+
+        if (count != RANDOM_COUNT) throw new IOException("Expected " + RANDOM_COUNT + " random numbers, found " + count);
+
+        return new PolyglotKey(random);
+    }
+
+    // The table every Polyglot book is built with, looked up on the classpath
+    public static PolyglotKey standard() throws IOException {
+        try (InputStream in = PolyglotKey.class.getResourceAsStream(STANDARD_TABLE)) {
+            if (in == null) throw new IOException("Polyglot random table " + STANDARD_TABLE + " is not on the classpath");
+
+            return load(in);
+        }
+    }
+
+    public long of(Chessboard chessboard) {
+        long key = 0;
+
+        for (int square = 0; square < 64; square++) {
+            Piece piece = chessboard.pieceAt(square);
+
+            if (piece != null) key ^= this.random[64 * kinds[piece.ordinal()] + square];
+        }
+
+        // castling rights bits are in the same order as the Polyglot numbers: white short, white long, black short, black long
+        for (int right = 0; right < 4; right++) {
+            if ((chessboard.castlingRights() & (1 << right)) != 0) key ^= this.random[CASTLING + right];
+        }
+
+        int enPassant = chessboard.capturableEnPassant();
+
+        if (enPassant != Bitboard.NO_SQUARE) key ^= this.random[EN_PASSANT + Bitboard.col(enPassant)];
+        if (chessboard.getSideToMove()) key ^= this.random[TURN];
+
+        return key;
+    }
+}
@@ -0,0 +1,91 @@
+package com.mycompany.app.chessboard;
+
+// Read-only copy of a position taken right after a move. Nothing in it ever changes once built, so it
+// can be handed to any thread: readers get the latest one from Chessboard.getSnapshot() without locking
+public final class PositionSnapshot {
+    // Piece ordinal + 1 per square, 0 for an empty square
+    private final byte[] squares = new byte[64];
+    private final boolean whiteToMove;
+    private final int castlingRights;
+    private final String enPassant;
+    private final int halfmoveClock;
+    private final int ply;
+    private final int lastMove;
+    private final long key;
+    private final GameState gameState;
+
+    PositionSnapshot(Piece[] squares, boolean whiteToMove, int castlingRights, String enPassant, int halfmoveClock,
+            int ply, int lastMove, long key, GameState gameState) {
+        for (int square = 0; square < 64; square++) {
+            this.squares[square] = (byte)(squares[square] == null ? 0 : squares[square].ordinal() + 1);
+        }
+
+        this.whiteToMove = whiteToMove;
+        this.castlingRights = castlingRights;
+        this.enPassant = enPassant;
+        this.halfmoveClock = halfmoveClock;
+        this.ply = ply;
+        this.lastMove = lastMove;
+        this.key = key;
+        this.gameState = gameState;
+    }
+
+    // Piece letter on the square, '\0' if it is empty
+    public char getPiece(int row, int col) {
+        int piece = this.squares[Bitboard.square(row, col)];
+
+        return piece == 0 ? '\0' : Piece.of(piece - 1).toChar();
+    }
+
+    // Same layout as Chessboard.getBoard(), a new array on every call
+    public char[][] getBoard() {
+        char[][] board = new char[8][8];
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                board[row][col] = getPiece(row, col);
+            }
+        }
+
+        return board;
+    }
+
+    public boolean getSideToMove() {
+        return this.whiteToMove;
+    }
+
+    public boolean canCastle(boolean white, boolean kingside) {
+        int right = white
+            ? (kingside ? Chessboard.WHITE_KINGSIDE : Chessboard.WHITE_QUEENSIDE)
+            : (kingside ? Chessboard.BLACK_KINGSIDE : Chessboard.BLACK_QUEENSIDE);
+
+        return (this.castlingRights & right) != 0;
+    }
+
+    // See Chessboard.getEnPassant()
+    public String getEnPassant() {
+        return this.enPassant;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    // Number of moves played on the board since it was set up
+    public int getPly() {
+        return this.ply;
+    }
+
+    // Packed move which led to this position, Move.NONE for the initial one
+    public int getLastMove() {
+        return this.lastMove;
+    }
+
+    public long getKey() {
+        return this.key;
+    }
+
+    public GameState getGameState() {
+        return this.gameState;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mycompany.app.chessboard;
+
+// Random keys for Zobrist hashing: a position key is the XOR of the keys of everything in the position,
+// so a move only flips the keys of what it changes. Keys come from a fixed seed, which keeps position
+// keys stable between runs and lets them index persistent data
+final class Zobrist {
+    private static final long[][] pieceSquare = new long[12][64];
+    private static final long[] castling = new long[16];
+    private static final long[] enPassantFile = new long[8];
+    private static final long side;
+
+    private static long seed = 1070372L;
+
+    static {
+        for (long[] squares : pieceSquare) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = nextRandom();
+            }
+        }
+
+        for (int rights = 0; rights < castling.length; rights++) {
+            castling[rights] = nextRandom();
+        }
+
+        for (int file = 0; file < enPassantFile.length; file++) {
+            enPassantFile[file] = nextRandom();
+        }
+
+        side = nextRandom();
+    }
+
+    private Zobrist() {}
+
+    static long piece(Piece piece, int square) {
+        return pieceSquare[piece.ordinal()][square];
+    }
+
+    static long castling(int castlingRights) {
+        return castling[castlingRights];
+    }
+
+    static long enPassant(int square) {
+        return enPassantFile[Bitboard.col(square)];
+    }
+
+    // Flipped whenever the side to move changes, white to move is part of the key
+    static long side() {
+        return side;
+    }
+
+    // xorshift64*
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+
+        return seed * 2685821657736338717L;
+    }
+}
@@ -0,0 +1,151 @@
+package com.mycompany.app.commands;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.ParallelPerft;
+import com.mycompany.app.chessboard.Perft;
+
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(
+    name = "perft",
+    description = "Count nodes of the move tree to measure and verify the board logic"
+)
+public class BlindFishPerft implements Callable<Integer> {
+    private final static String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Reference positions with their published node counts for depth 1, 2, 3...
+    private final static Object[][] REFERENCE_POSITIONS = new Object[][]{
+        { "Start position", START_POSITION,
+            new long[]{ 20L, 400L, 8902L, 197281L, 4865609L, 119060324L } },
+        { "Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            new long[]{ 48L, 2039L, 97862L, 4085603L, 193690690L } },
+        { "Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            new long[]{ 14L, 191L, 2812L, 43238L, 674624L, 11030083L } },
+        { "Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            new long[]{ 6L, 264L, 9467L, 422333L, 15833292L } },
+        { "Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            new long[]{ 44L, 1486L, 62379L, 2103487L, 89941194L } },
+        { "Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            new long[]{ 46L, 2079L, 89890L, 3894594L, 164075551L } },
+    };
+
+    @Option(names = { "-f", "--fen" }, description = "Position to walk from, the start position by default")
+    private String fen = START_POSITION;
+
+    @Option(names = { "-d", "--depth" }, description = "Depth of the walk, default depth is 5")
+    private int depth = 5;
+
+    @Option(names = { "--divide" }, description = "Print the node count of every root move")
+    private boolean divide;
+
+    @Option(names = { "-t", "--threads" }, description = "Number of worker threads, 1 walks the tree on the calling thread")
+    private int threads = 1;
+
+    @Option(names = { "--hash" }, description = "Size in MB of the table of subtree counts shared by the workers, 0 for none")
+    private int hash;
+
+    @Option(names = { "-s", "--suite" }, description = "Walk the reference positions and compare node counts with the known results")
+    private boolean suite;
+
+    private boolean isParallel() {
+        return this.threads > 1 || this.hash > 0;
+    }
+
+    private long perft(Chessboard chessboard, int depth) {
+        if (!isParallel()) return new Perft(depth).perft(chessboard, depth);
+
+        try (ParallelPerft perft = new ParallelPerft(this.threads, this.hash)) {
+            return perft.perft(chessboard, depth);
+        }
+    }
+
+    private int divide(Chessboard chessboard, int depth, int[] moves, long[] counts) {
+        if (!isParallel()) return new Perft(depth).divide(chessboard, depth, moves, counts);
+
+        try (ParallelPerft perft = new ParallelPerft(this.threads, this.hash)) {
+            return perft.divide(chessboard, depth, moves, counts);
+        }
+    }
+
+    private long run(String fen, int depth) {
+        Chessboard chessboard = new Chessboard(fen);
+        long nodes = 0;
+
+        long start = System.nanoTime();
+
+        if (this.divide) {
+            int[] moves = new int[Move.MAX_MOVES];
+            long[] counts = new long[Move.MAX_MOVES];
+            int count = divide(chessboard, depth, moves, counts);
+
+            for (int i = 0; i < count; i++) {
+                System.out.println(Move.toString(moves[i]) + ": " + counts[i]);
+                nodes += counts[i];
+            }
+        } else {
+            nodes = perft(chessboard, depth);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Depth " + depth + ": " + nodes + " nodes, " + elapsed / 1_000_000 + " ms, "
+            + (elapsed == 0 ? 0 : nodes * 1_000_000_000L / elapsed) + " nps");
+
+        return nodes;
+    }
+
+    private int runSuite() {
+        int failures = 0;
+
+        for (Object[] position : REFERENCE_POSITIONS) {
+            long[] expected = (long[])position[2];
+            int maxDepth = Math.min(this.depth, expected.length);
+
+            System.out.println(position[0] + " " + position[1]);
+
+            long nodes = run((String)position[1], maxDepth);
+
+            if (nodes != expected[maxDepth - 1]) {
+                System.out.println("Mismatch, expected " + expected[maxDepth - 1] + " nodes");
+                failures++;
+            }
+        }
+
+        System.out.println(failures == 0 ? "All positions match" : failures + " position(s) do not match");
+
+        return failures == 0 ? 0 : 1;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        if (this.depth < 1) {
+            System.out.println("Depth should be at least 1");
+
+            return 1;
+        }
+
+        if (this.threads < 1 || this.hash < 0) {
+            System.out.println("Threads should be at least 1 and hash size cannot be negative");
+
+            return 1;
+        }
+
+        if (this.suite) {
+            return runSuite();
+        }
+
+        run(this.fen, this.depth);
+
+        return 0;
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new BlindFishPerft()).execute(args);
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mycompany.app.commands;
+
+import com.mycompany.app.pgn.PgnReplayer;
+import com.mycompany.app.pgn.PgnReport;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(
+    name = "replay-pgn",
+    description = "Play all games of a PGN file on the board and report moves which cannot be played"
+)
+public class BlindFishReplayPgn implements Callable<Integer> {
+    private final static String STANDARD_INPUT = "-";
+
+    @Parameters(index = "0", description = "PGN file, " + STANDARD_INPUT + " reads standard input")
+    private String file;
+
+    @Option(names = { "-t", "--threads" }, description = "Number of worker threads, all available cores by default")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = { "-m", "--max-problems" }, description = "Number of problems to print, default is 20")
+    private int maxProblems = 20;
+
+    private ReadableByteChannel open() throws Exception {
+        if (this.file.equals(STANDARD_INPUT)) return Channels.newChannel(System.in);
+
+        Path path = Paths.get(this.file);
+
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        if (this.threads < 1) {
+            System.out.println("Threads should be at least 1");
+
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        PgnReport report;
+
+        try (ReadableByteChannel channel = open()) {
+            report = new PgnReplayer(this.threads, Math.max(0, this.maxProblems)).replay(channel);
+        }
+
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        for (String problem : report.getProblems()) {
+            System.out.println(problem);
+        }
+
+        System.out.println(report.getGames() + " games, " + report.getPlies() + " moves, " + report.getFailed() + " failed");
+        System.out.println(elapsed / 1_000_000 + " ms, " + report.getGames() * 1_000_000_000L / elapsed + " games/s, "
+            + report.getPlies() * 1_000_000_000L / elapsed + " moves/s");
+
+        return report.getFailed() == 0 ? 0 : 1;
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new BlindFishReplayPgn()).execute(args);
+        System.exit(exitCode);
+    }
+}
@@ -25,6 +25,12 @@ public class BlindFishSetup implements Callable<Integer> {
     @Option(names = { "-l", "--level" }, description = "Stockfish mastery level. Accepts values from 0 to 10, default level is 10")
     private int level;
 
+    @Option(names = { "-b", "--book" }, description = "Path to a Polyglot opening book (.bin), replies in book are played without asking the engine")
+    private String book;
+
+    @Option(names = { "-p", "--ponder" }, arity = "0..1", description = "Let the engine think while it is your move, true or false, default is false")
+    private boolean ponder;
+
     @Spec
     private CommandSpec spec;
 
@@ -42,6 +48,8 @@ public class BlindFishSetup implements Callable<Integer> {
         ParseResult pr = spec.commandLine().getParseResult();
         if (pr.hasMatchedOption("engine")) settings.setEngine(engine);
         if (pr.hasMatchedOption("level")) settings.setLevel(level);
+        if (pr.hasMatchedOption("book")) settings.setBook(book);
+        if (pr.hasMatchedOption("ponder")) settings.setPonder(ponder);
 
         SettingsHandler.serializeSettings(settings);
     } 
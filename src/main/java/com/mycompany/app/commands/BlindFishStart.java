@@ -2,22 +2,34 @@ package com.mycompany.app.commands;
 
 import com.mycompany.app.Settings;
 import com.mycompany.app.SettingsHandler;
+import com.mycompany.app.book.PolyglotBook;
 import com.mycompany.app.chessboard.Fen;
 import com.mycompany.app.exceptions.IllegalMoveException;
+import com.mycompany.app.chessboard.Bitbases;
 import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.GameState;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.PolyglotKey;
 import com.mycompany.app.EngineConnector;
+import com.mycompany.app.EnginePool;
+import com.mycompany.app.ReplyCache;
+import com.mycompany.app.analysis.Analysis;
+import com.mycompany.app.analysis.AnalysisCache;
 import com.mycompany.app.uci.*;
 
 import java.util.concurrent.Callable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 
 @Command(
     name = "start",
@@ -25,61 +37,293 @@ import picocli.CommandLine.Command;
 )
 public class BlindFishStart implements Callable<Integer> {
     private final String QUIT = "q";
+    private final String UNDO = "undo";
+    private final String NEW_GAME = "new";
     private final String CANNOT_START_STOCKFISH_ENGINE_ERROR = "Cannot start stockfish engine";
     private final String INTERNAL_SERVER_ERROR = "Internal server error";
+    private final String ANALYSIS_FILE = "analysis";
+    private final int ENGINE_LEASE_TIMEOUT_SECONDS = 10;
+    private static final int REPLY_CACHE_CAPACITY = 4096;
 
+    // Started once for the process, every game of it leases the already introduced engine again
+    private static EnginePool enginePool;
     private EngineConnector engineConnector;
+
+    @Option(names = { "--stats" }, description = "Print the counters of the engine reply cache to standard error on quit")
+    private boolean stats;
+
     private Fen fen;
     private Chessboard chessboard;
     private Settings settings;
-    private List<String> moves = new ArrayList<>();
+    // Null when playing without an opening book
+    private PolyglotBook book;
+    private final Random random = new Random();
+    // Shared by every game of the process, a position answered in one game is answered at once in the next
+    private static final ReplyCache replyCache = new ReplyCache(REPLY_CACHE_CAPACITY);
+    // Null when the endgame tables cannot be read or saved
+    private Bitbases bitbases;
+    // Null when the analysis file cannot be opened
+    private AnalysisCache analysisCache;
+    // Reply the engine is pondering on, null when it is not pondering
+    private String ponderMove;
+    // Reply the engine expects to its last move, null when it named none
+    private String expectedMove;
+    // Moves played so far, kept as the position command the engine is sent
+    private MoveHistory history;
+    // Depth the last search of the engine reached, a stored analysis answers only when it is as deep
+    private int searchDepth;
 
     BlindFishStart() {
         try {
             this.settings = SettingsHandler.getSettingsFile();
-            this.engineConnector = new EngineConnector(this.settings.getEngine());
             this.fen = new Fen();
-            this.chessboard = new Chessboard(new Fen().get());
+            this.chessboard = new Chessboard(this.fen);
+            this.history = new MoveHistory(this.fen.get());
+            // the position can be read by other threads without stalling the input loop
+            this.chessboard.setPublishingSnapshots(true);
+
+            if (this.settings.getBook() != null) {
+                openBook(this.settings.getBook());
+            }
+
+            openBitbases();
+            openAnalysisCache();
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
         }
     }
 
+    private void openBook(String path) {
+        try {
+            this.book = new PolyglotBook(Path.of(path), PolyglotKey.standard());
+        } catch (IOException e) {
+            System.out.println("Opening book disabled: " + e.getMessage());
+        }
+    }
+
+    // Tables are generated on the first start and read back afterwards
+    private void openBitbases() {
+        try {
+            this.bitbases = Bitbases.load(Path.of(Settings.DIR), Runtime.getRuntime().availableProcessors());
+        } catch (IOException e) {
+            System.out.println("Endgame tables disabled: " + e.getMessage());
+        }
+    }
+
+    private void openAnalysisCache() {
+        try {
+            this.analysisCache = new AnalysisCache(Path.of(Settings.DIR, ANALYSIS_FILE), AnalysisCache.DEFAULT_SLOTS);
+        } catch (IOException e) {
+            System.out.println("Analysis cache disabled: " + e.getMessage());
+        }
+    }
+
+    // Plays a reply from the opening book, the engine is not asked at all then.
+    // Returns the move played, nothing when the position is out of book
+    private Optional<String> playBookMove() {
+        if (this.book == null) return Optional.empty();
+
+        String move = this.book.pickMove(this.chessboard, this.random);
+
+        if (move == null) return Optional.empty();
+
+        try {
+            addMove(chessboard.updateChessboard(move));
+        } catch (IllegalMoveException e) {
+            // a broken book entry, the engine answers instead
+            return Optional.empty();
+        }
+
+        return Optional.of(move);
+    }
+
+    // Defends or holds a king and pawn, rook or queen ending from the tables, without asking the engine.
+    // Returns the move played, nothing when the engine has to answer
+    private Optional<String> playBitbaseMove() {
+        if (this.bitbases == null) return Optional.empty();
+
+        int move = this.bitbases.pickMove(this.chessboard);
+
+        if (move == Move.NONE) return Optional.empty();
+
+        try {
+            addMove(chessboard.updateChessboard(move));
+        } catch (IllegalMoveException e) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Move.toString(move));
+    }
+
+    // The engine is borrowed from a pool which has already introduced it, leasing starts a new game
     private void prepareEngine() {
-        boolean isStarted = this.engineConnector.start();
-
-        if (isStarted) {
-            try {
-                engineConnector.sendCommand(new UCI());
-                engineConnector.sendCommand(new IsReady());
-                engineConnector.sendCommand(new UciNewGame());
-            } catch (IOException e) {
-               throw new InternalError(CANNOT_START_STOCKFISH_ENGINE_ERROR);
-            }
+        try {
+            if (enginePool == null) enginePool = new EnginePool(this.settings.getEngine(), 1);
 
-            System.out.println("The board is ready, play by using long algebraic notation (e.g. e2e4, e1g1 - short castling, e4d5 - capture).");
-        } else {
+            this.engineConnector = enginePool.lease(ENGINE_LEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (IOException e) {
             throw new InternalError(CANNOT_START_STOCKFISH_ENGINE_ERROR);
         }
+
+        System.out.println("The board is ready, play by using long algebraic notation (e.g. e2e4, e1g1 - short castling, e4d5 - capture).");
+        System.out.println("Type " + UNDO + " to take back your last move, " + NEW_GAME + " to start a new game.");
+    }
+
+    // Gives the engine back and leases it again, without starting another process or introducing it again
+    private void newGame() throws IOException {
+        stopPondering(null);
+        enginePool.release(engineConnector);
+        engineConnector = null;
+        prepareEngine();
+
+        expectedMove = null;
+        chessboard.setPosition(fen);
+        history = new MoveHistory(fen.get());
+    }
+
+    private void addMove(int move) {
+        history.add(move);
     }
 
     private void validateUserMove(String move) throws IllegalMoveException {
-        chessboard.updateChessboard(move);
-        moves.add(move);
+        addMove(chessboard.updateChessboard(move));
     }
 
-    private Optional<String> sendUserMove(Position command) throws IOException {
+    // Takes back the user's last move together with the engine reply to it
+    private void undo() {
+        if (history.size() == 0) {
+            System.out.println("Nothing to take back");
+            return;
+        }
+
+        // the engine reply is missing if it could not be played on the board
+        int plies = history.size() % 2 == 0 ? 2 : 1;
+
+        for (int i = 0; i < plies; i++) {
+            chessboard.unmakeMove();
+            history.removeLast();
+        }
+
+        System.out.println("Took back " + plies + (plies == 1 ? " move" : " moves"));
+    }
+
+    private Optional<String> sendUserMove(Position command, Go go, Stop stop) throws IOException {
         Optional<String> response;
 
         engineConnector.sendCommand(command);
-        engineConnector.sendCommand(new Go());
+        engineConnector.sendCommand(go);
+
+        response = engineConnector.sendCommand(stop);
+
+        return response;
+    }
+
+    // Asks the engine for a reply unless it already answered this position at the same level and search limits
+    // in this session, or analysed it in an earlier one at least as deep as its searches reach now. A shallower
+    // analysis is searched again and replaced by the deeper result
+    private Optional<String> getEngineMove() throws IOException {
+        Go go = new Go();
+        long key = chessboard.getKey();
+        int level = settings.getLevel();
+        Optional<String> response = replyCache.get(key, level, go.getCommand());
+
+        expectedMove = null;
+
+        if (response.isPresent()) return response;
 
-        response = engineConnector.sendCommand(new Stop());
+        Optional<Analysis> analysis = analysisCache == null ? Optional.empty() : analysisCache.get(key, searchDepth);
+
+        if (analysis.isPresent()) {
+            List<String> pv = analysis.get().getPv();
+
+            response = Optional.of(analysis.get().getBestMove());
+            expectedMove = pv.size() > 1 ? pv.get(1) : null;
+        } else {
+            Stop stop = new Stop();
+
+            response = sendUserMove(new Position(history), go, stop);
+            expectedMove = stop.getPonderMove();
+
+            if (response.isPresent()) {
+                Analysis searched = Analysis.parse(response.get(), stop.getInfo());
+
+                searchDepth = searched.getDepth();
+
+                if (analysisCache != null) analysisCache.put(key, searched);
+            }
+        }
+
+        response.ifPresent(move -> replyCache.put(key, level, go.getCommand(), move));
 
         return response;
     }
 
+    // Lets the engine search the position after the reply it expects while the user thinks. The reply is played
+    // on a copy of the board first: an illegal one or one which ends the game leaves nothing to ponder on
+    private void startPondering() throws IOException {
+        if (!settings.getPonder() || expectedMove == null) return;
+
+        Chessboard afterReply = new Chessboard(chessboard);
+        int move;
+
+        try {
+            move = afterReply.updateChessboard(expectedMove);
+        } catch (IllegalMoveException e) {
+            return;
+        }
+
+        if (afterReply.getGameState() != GameState.ONGOING) return;
+
+        // the command is written when sent, the expected reply is only in the history meanwhile
+        history.add(move);
+
+        try {
+            engineConnector.sendCommand(new Position(history));
+        } finally {
+            history.removeLast();
+        }
+
+        engineConnector.sendCommand(new Go(true));
+        ponderMove = expectedMove;
+    }
+
+    // Ends pondering once the user has moved. When they played the expected move, the search goes on as a normal
+    // one and its reply is returned. Otherwise it is stopped and its result dropped, nothing is returned then
+    private Optional<String> stopPondering(String userMove) throws IOException {
+        if (ponderMove == null) return Optional.empty();
+
+        boolean isHit = ponderMove.equals(userMove);
+
+        ponderMove = null;
+
+        if (isHit) engineConnector.sendCommand(new PonderHit());
+
+        Stop stop = new Stop();
+        Optional<String> response = engineConnector.sendCommand(stop);
+
+        if (!isHit) return Optional.empty();
+
+        long key = chessboard.getKey();
+
+        expectedMove = stop.getPonderMove();
+
+        if (analysisCache != null) {
+            response.ifPresent(move -> analysisCache.put(key, Analysis.parse(move, stop.getInfo())));
+        }
+
+        // after the hit it was a normal search, the same one getEngineMove would have started
+        response.ifPresent(move -> replyCache.put(key, settings.getLevel(), new Go().getCommand(), move));
+
+        return response;
+    }
+
+    private void playEngineMove(String move) throws IllegalMoveException, IOException {
+        addMove(chessboard.updateChessboard(move));
+        System.out.println(move);
+        startPondering();
+    }
+
     private void processUserMoves() throws InternalError {
         try (
             InputStreamReader in = new InputStreamReader(System.in);
@@ -88,16 +332,45 @@ public class BlindFishStart implements Callable<Integer> {
             String move;
 
             while(!(move = br.readLine()).equals(this.QUIT)) {
+                if (move.equals(this.UNDO)) {
+                    stopPondering(null);
+                    undo();
+                    continue;
+                }
+
+                if (move.equals(this.NEW_GAME)) {
+                    newGame();
+                    continue;
+                }
+
                 try {
                     validateUserMove(move);
-                    
-                    Position command = new Position(fen.get(), moves);
-                    Optional<String> response = sendUserMove(command);
-                
+
+                    Optional<String> ponderReply = stopPondering(Move.toString(history.get(history.size() - 1)));
+
+                    if (ponderReply.isPresent()) {
+                        playEngineMove(ponderReply.get());
+                        continue;
+                    }
+
+                    Optional<String> bookMove = playBookMove();
+
+                    if (bookMove.isPresent()) {
+                        System.out.println(bookMove.get());
+                        continue;
+                    }
+
+                    Optional<String> bitbaseMove = playBitbaseMove();
+
+                    if (bitbaseMove.isPresent()) {
+                        System.out.println(bitbaseMove.get());
+                        continue;
+                    }
+
+                    Optional<String> response = getEngineMove();
+
                     if (response.isPresent()) {
-                        chessboard.updateChessboard(response.get());
-                        moves.add(response.get());
-                        System.out.println(response.get());
+                        playEngineMove(response.get());
                     } else {
                         System.out.println(response);
                         throw new InternalError(INTERNAL_SERVER_ERROR);
@@ -107,6 +380,16 @@ public class BlindFishStart implements Callable<Integer> {
                     continue;
                 }
             }
+
+            stopPondering(null);
+
+            // kept out of the game transcript on standard output
+            if (stats) System.err.println(replyCache);
+
+            if (analysisCache != null) analysisCache.close();
+
+            enginePool.release(engineConnector);
+            enginePool.close();
         } catch(IOException e) {
             throw new InternalError(INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,56 @@
+package com.mycompany.app.commands;
+
+import com.mycompany.app.epd.EpdReport;
+import com.mycompany.app.epd.EpdValidator;
+
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(
+    name = "validate-epd",
+    description = "Check every position of an EPD or FEN file, one position per line"
+)
+public class BlindFishValidateEpd implements Callable<Integer> {
+    @Parameters(index = "0", description = "File to check")
+    private Path file;
+
+    @Option(names = { "-t", "--threads" }, description = "Number of worker threads, all available cores by default")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = { "-m", "--max-problems" }, description = "Number of problems to print, default is 20")
+    private int maxProblems = 20;
+
+    @Override
+    public Integer call() throws Exception {
+        if (this.threads < 1) {
+            System.out.println("Threads should be at least 1");
+
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        EpdReport report = new EpdValidator(this.threads, Math.max(0, this.maxProblems)).validate(this.file);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        for (String problem : report.getProblems()) {
+            System.out.println(problem);
+        }
+
+        System.out.println(report.getPositions() + " positions, " + report.getMalformed() + " malformed, "
+            + report.getIllegal() + " illegal");
+        System.out.println(elapsed / 1_000_000 + " ms, " + report.getPositions() * 1_000_000_000L / elapsed + " positions/s, "
+            + report.getBytes() * 1_000_000_000L / elapsed / (1 << 20) + " MB/s");
+
+        return report.isValid() ? 0 : 1;
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new BlindFishValidateEpd()).execute(args);
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mycompany.app.epd;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A window on single-byte text inside a buffer, e.g. a memory-mapped file, read as characters without decoding
+// it into a String first. The window is moved with set, so one instance can walk all lines of a buffer
+final class AsciiSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    AsciiSequence(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    AsciiSequence set(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= this.length) throw new IndexOutOfBoundsException("Index " + index + ", length " + this.length);
+
+        return (char)(this.buffer.get(this.offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new AsciiSequence(this.buffer).set(this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[this.length];
+
+        for (int i = 0; i < this.length; i++) {
+            bytes[i] = this.buffer.get(this.offset + i);
+        }
+
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
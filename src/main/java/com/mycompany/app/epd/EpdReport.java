@@ -0,0 +1,49 @@
+package com.mycompany.app.epd;
+
+import java.util.List;
+
+// Outcome of validating a file of positions. Problems are listed in file order, up to the limit
+// given to the validator, while the counters cover the whole file
+public final class EpdReport {
+    private final long bytes;
+    private final long positions;
+    private final long malformed;
+    private final long illegal;
+    private final List<String> problems;
+
+    EpdReport(long bytes, long positions, long malformed, long illegal, List<String> problems) {
+        this.bytes = bytes;
+        this.positions = positions;
+        this.malformed = malformed;
+        this.illegal = illegal;
+        this.problems = problems;
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    // Lines holding a position, whether valid or not
+    public long getPositions() {
+        return this.positions;
+    }
+
+    // Lines which are not a FEN or EPD record
+    public long getMalformed() {
+        return this.malformed;
+    }
+
+    // Well-formed positions which cannot occur in a game
+    public long getIllegal() {
+        return this.illegal;
+    }
+
+    // Messages like "line 12: side not to move is in check"
+    public List<String> getProblems() {
+        return this.problems;
+    }
+
+    public boolean isValid() {
+        return this.malformed == 0 && this.illegal == 0;
+    }
+}
@@ -0,0 +1,213 @@
+package com.mycompany.app.epd;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Fen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Checks every position of a FEN or EPD file, one record per line. The file is memory-mapped in chunks cut at
+// line starts and the chunks are validated in parallel. Each worker reads its lines straight from the mapping
+// and reuses a single board, so large files are not turned into millions of strings first
+public final class EpdValidator {
+    private static final long CHUNK_SIZE = 64L << 20;
+
+    private final int threads;
+    private final int maxProblems;
+
+    public EpdValidator(int threads, int maxProblems) {
+        this.threads = threads;
+        this.maxProblems = maxProblems;
+    }
+
+    public EpdReport validate(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            long size = channel.size();
+
+            for (long start = 0; start < size; ) {
+                long end = nextLineStart(channel, Math.min(size, start + CHUNK_SIZE), size);
+                long chunkStart = start;
+
+                tasks.add(() -> validateChunk(channel, chunkStart, end));
+                start = end;
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(this.threads);
+
+            try {
+                return merge(size, pool.invokeAll(tasks));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // First line start at or after the given position
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position == size) return size;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        for (long offset = position - 1; offset < size; offset += buffer.limit()) {
+            buffer.clear();
+            channel.read(buffer, offset);
+            buffer.flip();
+
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') return offset + i + 1;
+            }
+        }
+
+        return size;
+    }
+
+    private EpdReport merge(long size, List<Future<Chunk>> futures) throws IOException {
+        List<String> problems = new ArrayList<>();
+        long lines = 0;
+        long positions = 0;
+        long malformed = 0;
+        long illegal = 0;
+
+        for (Future<Chunk> future : futures) {
+            Chunk chunk;
+
+            try {
+                chunk = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Validation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Cannot validate positions", e.getCause());
+            }
+
+            // line numbers inside a chunk are only known to be right once the lines before it are counted
+            for (int i = 0; i < chunk.problemLines.size() && problems.size() < this.maxProblems; i++) {
+                problems.add("line " + (lines + chunk.problemLines.get(i)) + ": " + chunk.problems.get(i));
+            }
+
+            lines += chunk.lines;
+            positions += chunk.positions;
+            malformed += chunk.malformed;
+            illegal += chunk.illegal;
+        }
+
+        return new EpdReport(size, positions, malformed, illegal, problems);
+    }
+
+    private Chunk validateChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        AsciiSequence line = new AsciiSequence(buffer);
+        Chunk chunk = new Chunk();
+        Chessboard chessboard = null;
+        int limit = buffer.limit();
+        int lineStart = 0;
+
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buffer.get(i) != '\n') continue;
+            // the last line of a file may end without a line break
+            if (i == limit && lineStart == limit) break;
+
+            chunk.lines++;
+
+            int lineEnd = i;
+
+            while (lineEnd > lineStart && Character.isWhitespace((char)buffer.get(lineEnd - 1))) {
+                lineEnd--;
+            }
+
+            if (lineEnd > lineStart) {
+                line.set(lineStart, lineEnd - lineStart);
+                chunk.positions++;
+
+                try {
+                    Fen fen = new Fen(line.subSequence(0, positionLength(line)));
+
+                    if (chessboard == null) {
+                        chessboard = new Chessboard(fen);
+                    } else {
+                        chessboard.setPosition(fen);
+                    }
+
+                    String illegality = chessboard.findIllegality();
+
+                    if (illegality == null && fen.hasIgnoredCastlingRights()) {
+                        illegality = "castling rights for a king or rook which has moved";
+                    }
+
+                    if (illegality != null) {
+                        chunk.illegal++;
+                        chunk.report(illegality, this.maxProblems);
+                    }
+                } catch (IllegalArgumentException e) {
+                    chunk.malformed++;
+                    chunk.report(e.getMessage(), this.maxProblems);
+                }
+            }
+
+            lineStart = i + 1;
+        }
+
+        return chunk;
+    }
+
+    // Length of the FEN part of a line: board, side to move, castling rights and en passant square,
+    // followed by the move counters when the line has them. Whatever comes after is EPD operations
+    private static int positionLength(CharSequence line) {
+        int length = line.length();
+        int end = 0;
+
+        for (int field = 0; field < 4 && end < length; field++) {
+            if (field > 0) end++;
+
+            while (end < length && line.charAt(end) != ' ') {
+                end++;
+            }
+        }
+
+        int counters = end;
+
+        for (int field = 0; field < 2; field++) {
+            if (counters >= length || line.charAt(counters) != ' ') return end;
+
+            int digits = counters + 1;
+
+            while (digits < length && Character.isDigit(line.charAt(digits))) {
+                digits++;
+            }
+
+            if (digits == counters + 1 || (digits < length && line.charAt(digits) != ' ' && line.charAt(digits) != ';')) return end;
+
+            counters = digits;
+        }
+
+        return counters;
+    }
+
+    // Counters and the first problems of a chunk, with line numbers counted from the chunk start
+    private static final class Chunk {
+        private final List<Long> problemLines = new ArrayList<>();
+        private final List<String> problems = new ArrayList<>();
+        private long lines;
+        private long positions;
+        private long malformed;
+        private long illegal;
+
+        private void report(String problem, int maxProblems) {
+            if (this.problems.size() < maxProblems) {
+                this.problemLines.add(this.lines);
+                this.problems.add(problem);
+            }
+        }
+    }
+}
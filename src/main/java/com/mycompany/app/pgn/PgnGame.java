@@ -0,0 +1,36 @@
+package com.mycompany.app.pgn;
+
+import java.util.List;
+import java.util.Map;
+
+// One game of a PGN file: its tag pairs and the moves of the main line in standard algebraic notation.
+// Comments, variations, move numbers and annotations are left out
+public final class PgnGame {
+    private final long index;
+    private final Map<String, String> headers;
+    private final List<String> moves;
+
+    PgnGame(long index, Map<String, String> headers, List<String> moves) {
+        this.index = index;
+        this.headers = headers;
+        this.moves = moves;
+    }
+
+    // Position of the game in the file, the first one is 1
+    public long getIndex() {
+        return this.index;
+    }
+
+    public Map<String, String> getHeaders() {
+        return this.headers;
+    }
+
+    // Tag value, e.g. getHeader("White"), null if the game has no such tag
+    public String getHeader(String name) {
+        return this.headers.get(name);
+    }
+
+    public List<String> getMoves() {
+        return this.moves;
+    }
+}
@@ -0,0 +1,211 @@
+package com.mycompany.app.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads games from PGN text one at a time through a fixed size buffer, so files of any size are read
+// in constant memory. Tokenizing is lenient: comments, variations, NAGs and escape lines are skipped,
+// and a game without a result ends where the tags of the next one begin
+public final class PgnReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String[] RESULTS = new String[]{ "1-0", "0-1", "1/2-1/2", "*" };
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder();
+    // Tag values are collected as bytes and decoded as UTF-8, player names are often not ASCII
+    private byte[] value = new byte[256];
+    private boolean isEndOfInput;
+    private int previous = '\n';
+    private long games;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer.flip();
+    }
+
+    // Returns the next game, null when there are no more
+    public PgnGame next() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        boolean hasContent = false;
+
+        for (int ch = peek(); ch != -1; ch = peek()) {
+            if (ch == '[') {
+                // tags after movetext belong to the next game
+                if (!moves.isEmpty()) break;
+
+                read();
+                readTag(headers);
+                hasContent = true;
+                continue;
+            }
+
+            boolean isLineStart = this.previous == '\n';
+
+            read();
+
+            // parentheses and braces closing nothing are ignored as well
+            if (Character.isWhitespace(ch) || ch == ')' || ch == '}') continue;
+
+            if (ch == '{') {
+                skipUntil('}');
+            } else if (ch == ';' || (ch == '%' && isLineStart)) {
+                skipUntil('\n');
+            } else if (ch == '(') {
+                skipVariation();
+            } else if (ch == '$') {
+                while (Character.isDigit(peek())) read();
+            } else {
+                readToken(ch);
+
+                if (isResult(this.token)) {
+                    hasContent = true;
+                    break;
+                }
+
+                String move = moveOf(this.token);
+
+                if (move != null) {
+                    moves.add(move);
+                    hasContent = true;
+                }
+            }
+        }
+
+        if (!hasContent) return null;
+
+        return new PgnGame(++this.games, headers, moves);
+    }
+
+    private void readTag(Map<String, String> headers) throws IOException {
+        int ch;
+
+        while ((ch = peek()) != -1 && Character.isWhitespace(ch)) read();
+
+        this.token.setLength(0);
+
+        while ((ch = peek()) != -1 && !Character.isWhitespace(ch) && ch != '"' && ch != ']') {
+            this.token.append((char)read());
+        }
+
+        while ((ch = peek()) != -1 && ch != '"' && ch != ']') read();
+
+        int length = 0;
+
+        if (peek() == '"') {
+            read();
+
+            while ((ch = read()) != -1 && ch != '"') {
+                if (ch == '\\') ch = read();
+                if (ch == -1) break;
+
+                if (length == this.value.length) {
+                    this.value = Arrays.copyOf(this.value, length * 2);
+                }
+
+                this.value[length++] = (byte)ch;
+            }
+        }
+
+        skipUntil(']');
+
+        if (this.token.length() > 0) {
+            headers.put(this.token.toString(), new String(this.value, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void readToken(int first) throws IOException {
+        this.token.setLength(0);
+        this.token.append((char)first);
+
+        int ch;
+
+        while ((ch = peek()) != -1 && !Character.isWhitespace(ch) && "{}();[$".indexOf(ch) < 0) {
+            this.token.append((char)read());
+        }
+    }
+
+    private static boolean isResult(CharSequence token) {
+        for (String result : RESULTS) {
+            if (result.contentEquals(token)) return true;
+        }
+
+        return false;
+    }
+
+    // Drops a move number glued to the move, as in 12.e4 or 12...e5, returns null for a bare move number
+    private static String moveOf(CharSequence token) {
+        int start = 0;
+
+        while (start < token.length() && Character.isDigit(token.charAt(start))) start++;
+
+        // castling written with zeros starts with a digit too
+        if (start < token.length() && token.charAt(start) != '.') start = 0;
+
+        while (start < token.length() && token.charAt(start) == '.') start++;
+
+        return start == token.length() ? null : token.subSequence(start, token.length()).toString();
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int ch;
+
+        while ((ch = read()) != -1 && ch != end);
+    }
+
+    // Variations nest and may hold comments with parentheses in them
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int ch;
+
+        while (depth > 0 && (ch = read()) != -1) {
+            if (ch == '(') depth++;
+            if (ch == ')') depth--;
+            if (ch == '{') skipUntil('}');
+            if (ch == ';') skipUntil('\n');
+        }
+    }
+
+    private int peek() throws IOException {
+        if (!this.buffer.hasRemaining() && !fill()) return -1;
+
+        return this.buffer.get(this.buffer.position()) & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int ch = peek();
+
+        if (ch != -1) {
+            this.buffer.get();
+            this.previous = ch;
+        }
+
+        return ch;
+    }
+
+    private boolean fill() throws IOException {
+        if (this.isEndOfInput) return false;
+
+        this.buffer.clear();
+
+        int read;
+
+        do {
+            read = this.channel.read(this.buffer);
+        } while (read == 0);
+
+        this.buffer.flip();
+
+        if (read < 0) this.isEndOfInput = true;
+
+        return read > 0;
+    }
+}
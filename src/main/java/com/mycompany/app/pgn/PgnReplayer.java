@@ -0,0 +1,116 @@
+package com.mycompany.app.pgn;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Fen;
+import com.mycompany.app.chessboard.GameState;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.exceptions.IllegalMoveException;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Plays every game of a PGN stream on a board to check that all its moves are legal. Games are read on the
+// calling thread and replayed by a pool of workers, each with a board of its own. The queue between them is
+// bounded and a full queue makes the reader replay the game itself, so memory use does not grow with the input
+public final class PgnReplayer {
+    private static final Fen START_POSITION = new Fen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+
+    private final int threads;
+    private final int maxProblems;
+    private final ThreadLocal<Chessboard> boards = ThreadLocal.withInitial(() -> new Chessboard(START_POSITION));
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong plies = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // Problems of the failing games with the lowest indexes, which workers may find in any order
+    private final TreeMap<Long, String> problems = new TreeMap<>();
+
+    public PgnReplayer(int threads, int maxProblems) {
+        this.threads = threads;
+        this.maxProblems = maxProblems;
+    }
+
+    public PgnReport replay(ReadableByteChannel channel) throws IOException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.threads * 64), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            PgnReader reader = new PgnReader(channel);
+
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                PgnGame replayed = game;
+
+                executor.execute(() -> replay(replayed));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", e);
+        }
+
+        synchronized (this.problems) {
+            return new PgnReport(this.games.get(), this.plies.get(), this.failed.get(), new ArrayList<>(this.problems.values()));
+        }
+    }
+
+    private void replay(PgnGame game) {
+        Chessboard chessboard = this.boards.get();
+        String fen = game.getHeader("FEN");
+
+        this.games.incrementAndGet();
+
+        try {
+            chessboard.setPosition(fen == null ? START_POSITION : new Fen(fen));
+        } catch (IllegalArgumentException e) {
+            fail(game, e.getMessage());
+            return;
+        }
+
+        for (int ply = 0; ply < game.getMoves().size(); ply++) {
+            String san = game.getMoves().get(ply);
+
+            try {
+                int move = chessboard.parseSan(san);
+
+                if (move == Move.NONE) throw new IllegalMoveException("Move not recognized");
+
+                GameState state = chessboard.getGameState();
+
+                // draws by repetition or the fifty-move rule have to be claimed, the game may go on
+                if (state == GameState.THREEFOLD_REPETITION || state == GameState.FIFTY_MOVE_RULE) {
+                    chessboard.makeMove(move);
+                } else {
+                    chessboard.updateChessboard(move);
+                }
+            } catch (IllegalMoveException e) {
+                this.plies.addAndGet(ply);
+                fail(game, "ply " + (ply + 1) + " (" + san + "): " + e.getMessage());
+                return;
+            }
+        }
+
+        this.plies.addAndGet(game.getMoves().size());
+    }
+
+    private void fail(PgnGame game, String problem) {
+        this.failed.incrementAndGet();
+
+        synchronized (this.problems) {
+            this.problems.put(game.getIndex(), "game " + game.getIndex() + ", " + problem);
+
+            if (this.problems.size() > this.maxProblems) {
+                this.problems.pollLastEntry();
+            }
+        }
+    }
+}
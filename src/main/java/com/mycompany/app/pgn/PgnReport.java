@@ -0,0 +1,38 @@
+package com.mycompany.app.pgn;
+
+import java.util.List;
+
+// Outcome of replaying a PGN file. Problems of the first failing games are listed in file order,
+// up to the limit given to the replayer, while the counters cover all games
+public final class PgnReport {
+    private final long games;
+    private final long plies;
+    private final long failed;
+    private final List<String> problems;
+
+    PgnReport(long games, long plies, long failed, List<String> problems) {
+        this.games = games;
+        this.plies = plies;
+        this.failed = failed;
+        this.problems = problems;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    // Moves replayed successfully, in all games
+    public long getPlies() {
+        return this.plies;
+    }
+
+    // Games with a start position or a move which could not be played
+    public long getFailed() {
+        return this.failed;
+    }
+
+    // Messages like "game 12, ply 7 (Nf3): Move not recognized"
+    public List<String> getProblems() {
+        return this.problems;
+    }
+}
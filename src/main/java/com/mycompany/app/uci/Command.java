@@ -1,21 +1,20 @@
 package com.mycompany.app.uci;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 public abstract class Command {
-    ExecutorService executor = Executors.newSingleThreadExecutor();
+    static final long RESPONSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     Predicate<String> predicate = line -> true;
     Function<String, Optional<String>> callback = line -> Optional.empty();
     boolean readResponse = true;
+    // Whether lines left over from earlier commands are dropped before sending, see EngineOutput
+    boolean clearOutput = true;
     String command = this.getClass().getSimpleName().toLowerCase();
 
     public void setPredicate(Predicate<String> predicate) {
@@ -30,38 +29,40 @@ public abstract class Command {
         this.readResponse = readResponse;
     }
 
+    public void setClearOutput(boolean clearOutput) {
+        this.clearOutput = clearOutput;
+    }
+
+    public boolean getClearOutput() {
+        return this.clearOutput;
+    }
+
     public void setCommand(String command) {
         this.command = command;
     }
 
+    public String getCommand() {
+        return this.command;
+    }
+
     public String build() {
         return this.getClass().getSimpleName().toLowerCase();
     };
 
-    public Optional<String> getResponse(BufferedReader reader) throws IOException {
+    // Reads engine lines until one matches the predicate, the whole response has to arrive in time
+    public Optional<String> getResponse(EngineOutput output) throws IOException {
         Optional<String> response = Optional.empty();
 
         if (readResponse) {
-            Future<Boolean> isReady = executor.submit(() -> {
-                while(true) {
-                    if (reader.ready()) return reader.ready();
-                }
-            });
-    
-            try {
-                boolean readerReady = isReady.get(5, TimeUnit.SECONDS);
-    
-                while(readerReady) {
-                    String line = reader.readLine();
-
-                    if (predicate.test(line)) {
-                        response = callback.apply(line);
-                        break;
-                    }
+            long deadline = System.nanoTime() + RESPONSE_TIMEOUT_NANOS;
+
+            while (true) {
+                String line = output.next(deadline - System.nanoTime());
+
+                if (predicate.test(line)) {
+                    response = callback.apply(line);
+                    break;
                 }
-    
-            } catch (Exception e) {
-                throw new IOException("Cannot read from Stockfish process. " + e.getMessage());
             }
         }
 
@@ -0,0 +1,70 @@
+package com.mycompany.app.uci;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Lines written by the engine, in order, handed from the thread reading the engine to the thread waiting
+// for a response. Waiting blocks on the queue until a line arrives, the engine stops or the time is up.
+// Lines nobody waits for, such as the rest of a response that came too late, are cleared before the next
+// command; a full queue drops its oldest line rather than stall the engine on its output
+public final class EngineOutput {
+    // Far more than a response is long, a search writes a few info lines per depth
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // Put behind the last line once the engine closed its output, compared by identity
+    private static final String END = new String("end of engine output");
+
+    private final LinkedBlockingQueue<String> lines;
+
+    public EngineOutput() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EngineOutput(int capacity) {
+        this.lines = new LinkedBlockingQueue<>(capacity);
+    }
+
+    // Called by the reader thread only
+    public void add(String line) {
+        while (!this.lines.offer(line)) {
+            this.lines.poll();
+        }
+    }
+
+    public void close() {
+        add(END);
+    }
+
+    // Drops the lines read so far, the end of the output is kept
+    public void clear() {
+        for (String line; (line = this.lines.poll()) != null; ) {
+            if (line == END) {
+                this.lines.offer(END);
+                return;
+            }
+        }
+    }
+
+    // Next line, waiting for it at most the given number of nanoseconds
+    public String next(long timeoutNanos) throws IOException {
+        String line;
+
+        try {
+            line = this.lines.poll(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the engine", e);
+        }
+
+        if (line == null) throw new IOException("No response from the engine in time");
+
+        if (line == END) {
+            // later calls have to fail as well
+            this.lines.offer(END);
+            throw new IOException("The engine closed its output");
+        }
+
+        return line;
+    }
+}
@@ -11,4 +11,11 @@ public class Go extends Command {
         super.setReadResponse(readResponse);
     }
 
+    // Searches the position after the expected reply until ponderhit or stop, see PonderHit
+    public Go(boolean ponder) {
+        this();
+
+        if (ponder) super.setCommand(build() + " ponder");
+    }
+
 }
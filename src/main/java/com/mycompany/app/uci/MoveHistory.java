@@ -0,0 +1,106 @@
+package com.mycompany.app.uci;
+
+import com.mycompany.app.chessboard.Fen;
+import com.mycompany.app.chessboard.Move;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Moves of a game kept as the text of the UCI position command which reaches the current position.
+// A move appends its few characters and taking it back cuts them off again, so the command never has to be
+// built from the whole game, and it is written to the engine straight from the buffer
+public final class MoveHistory {
+    private char[] text = new char[256];
+    private int length;
+    // Packed moves, see Move, and where the text of each of them starts, " moves" belongs to the first one
+    private int[] moves = new int[128];
+    private int[] starts = new int[128];
+    private int count;
+    // End of the text before the first move, which adds " moves"
+    private final int positionLength;
+
+    public MoveHistory(String fen) {
+        append("position ");
+
+        // the standard position is sent by name, engines need not parse its FEN
+        if (new Fen(fen).equals(new Fen())) {
+            append("startpos");
+        } else {
+            append("fen ").append(fen);
+        }
+
+        this.positionLength = this.length;
+    }
+
+    private MoveHistory append(String string) {
+        ensureCapacity(string.length());
+        string.getChars(0, string.length(), this.text, this.length);
+        this.length += string.length();
+
+        return this;
+    }
+
+    private void append(char ch) {
+        this.text[this.length++] = ch;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (this.length + extra > this.text.length) {
+            this.text = Arrays.copyOf(this.text, Math.max(this.text.length * 2, this.length + extra));
+        }
+    }
+
+    private void appendSquare(int square) {
+        append((char)('a' + square % 8));
+        append((char)('1' + square / 8));
+    }
+
+    public void add(int move) {
+        if (this.count == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.count * 2);
+            this.starts = Arrays.copyOf(this.starts, this.count * 2);
+        }
+
+        this.moves[this.count] = move;
+        this.starts[this.count++] = this.length;
+
+        // " moves" and one move of at most five characters after a space
+        ensureCapacity(12);
+
+        if (this.length == this.positionLength) append(" moves");
+
+        append(' ');
+        appendSquare(Move.from(move));
+        appendSquare(Move.to(move));
+
+        if (Move.promotionChar(move) != '\0') append(Move.promotionChar(move));
+    }
+
+    // Forgets the last move, returns false when there is none
+    public boolean removeLast() {
+        if (this.count == 0) return false;
+
+        this.length = this.starts[--this.count];
+
+        return true;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public int get(int index) {
+        return this.moves[index];
+    }
+
+    // Writes the position command, without a line break
+    public void writeTo(Writer writer) throws IOException {
+        writer.write(this.text, 0, this.length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.text, 0, this.length);
+    }
+}
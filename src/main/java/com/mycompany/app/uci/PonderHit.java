@@ -0,0 +1,10 @@
+package com.mycompany.app.uci;
+
+// The user played the move the engine is pondering on, its search goes on as a normal one
+public class PonderHit extends Command {
+    public PonderHit() {
+        super.setReadResponse(false);
+        // the search goes on, its lines are read by the stop which ends it
+        super.setClearOutput(false);
+    }
+}
@@ -1,13 +1,26 @@
 package com.mycompany.app.uci;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 
-public class Position extends Command {       
-    public Position(String fen, List<String> moves) {
-        String movesArgs = moves.size() > 0 ? "moves " + moves.stream().reduce("", (a, move) -> a + move + " ") : "";
-        String command = build() +  " fen " + fen + " " + movesArgs;
+public class Position extends Command {
+    private final MoveHistory history;
 
-        super.setCommand(command);
+    // Sends the game as it stands when the command is sent, straight from the history buffer
+    public Position(MoveHistory history) {
+        this.history = history;
         super.setReadResponse(false);
     }
+
+    @Override
+    public String getCommand() {
+        return this.history.toString();
+    }
+
+    @Override
+    public void send(OutputStreamWriter writer) throws IOException {
+        this.history.writeTo(writer);
+        writer.write("\n");
+        writer.flush();
+    }
 }
@@ -23,8 +23,34 @@ public class Stop extends Command {
         return response;
     };
 
+    // Last info line with a principal variation read before the best move, null if there was none
+    private String info;
+    // Reply the engine expects to its best move, null if it named none
+    private String ponderMove;
+
     public Stop() {
-        super.setPredicate(predicate);
+        super.setPredicate(line -> {
+            if (line.startsWith("info") && line.contains(" pv ")) this.info = line;
+
+            if (!predicate.test(line)) return false;
+
+            List<String> words = Arrays.asList(line.split(" "));
+            int ponderIndex = words.indexOf("ponder");
+
+            if (ponderIndex != -1 && ponderIndex + 1 < words.size()) this.ponderMove = words.get(ponderIndex + 1);
+
+            return true;
+        });
         super.setCallback(callback);
+        // the info lines of the running search are part of the response
+        super.setClearOutput(false);
+    }
+
+    public String getInfo() {
+        return this.info;
+    }
+
+    public String getPonderMove() {
+        return this.ponderMove;
     }
 }
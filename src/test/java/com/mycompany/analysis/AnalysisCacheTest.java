@@ -0,0 +1,129 @@
+package com.mycompany.analysis;
+
+import com.mycompany.app.analysis.Analysis;
+import com.mycompany.app.analysis.AnalysisCache;
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Fen;
+import com.mycompany.app.exceptions.IllegalMoveException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AnalysisCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Analysis analysis(String bestMove, int depth) {
+        return new Analysis(bestMove, 35, false, depth, List.of(bestMove, "e7e5", "g1f3"));
+    }
+
+    @Test
+    public void shouldParseTheLastInfoLine() {
+        Analysis analysis = Analysis.parse("e7e8q", "info depth 12 seldepth 18 multipv 1 score mate -3 nodes 1000 pv e7e8q d8e8 a1a8");
+
+        assertThat(analysis.getDepth(), is(12));
+        assertThat(analysis.isMate(), is(true));
+        assertThat(analysis.getScore(), is(-3));
+        assertThat(analysis.getPv(), is(Arrays.asList("e7e8q", "d8e8", "a1a8")));
+        assertThat(Analysis.parse("e2e4", null).getPv(), is(List.of("e2e4")));
+    }
+
+    @Test
+    public void shouldKeepAnalysisBetweenRuns() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("analysis");
+        Analysis analysis = new Analysis("a7a8n", -120, false, 20, List.of("a7a8n", "h8g8", "a8b6"));
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            assertThat(cache.put(0x1234_5678_9ABC_DEF0L, analysis), is(true));
+        }
+
+        try (AnalysisCache cache = new AnalysisCache(path, 1024)) {
+            // the table keeps the size it was created with
+            assertThat(cache.capacity(), is(64));
+            assertThat(cache.get(0x1234_5678_9ABC_DEF0L), is(Optional.of(analysis)));
+            assertThat(cache.get(0x1234_5678_9ABC_DEF1L), is(Optional.empty()));
+        }
+    }
+
+    @Test
+    public void shouldAnswerALaterGameWhenAsDeepAsItsSearch() throws IOException, IllegalMoveException {
+        Path path = folder.getRoot().toPath().resolve("analysis");
+        Chessboard game = new Chessboard(new Fen());
+
+        game.updateChessboard("e2e4");
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            cache.put(game.getKey(), Analysis.parse("e7e5", "info depth 9 score cp -20 pv e7e5 g1f3 b8c6"));
+        }
+
+        Chessboard laterGame = new Chessboard(new Fen());
+
+        laterGame.updateChessboard("e2e4");
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            assertThat(cache.get(laterGame.getKey(), 9).get().getBestMove(), is("e7e5"));
+            // a search reaching deeper is not answered by it
+            assertThat(cache.get(laterGame.getKey(), 10), is(Optional.empty()));
+        }
+    }
+
+    @Test
+    public void shouldPreferDeeperAnalysis() throws IOException {
+        try (AnalysisCache cache = new AnalysisCache(folder.getRoot().toPath().resolve("analysis"), 4)) {
+            assertThat(cache.put(1L, analysis("e2e4", 10)), is(true));
+            assertThat(cache.put(1L, analysis("d2d4", 8)), is(false));
+            assertThat(cache.get(1L).get().getBestMove(), is("e2e4"));
+
+            // the four slots are full, only a deeper analysis takes the place of the shallowest one
+            cache.put(2L, analysis("c2c4", 6));
+            cache.put(3L, analysis("g1f3", 12));
+            cache.put(4L, analysis("b2b3", 14));
+
+            assertThat(cache.put(5L, analysis("f2f4", 5)), is(false));
+            assertThat(cache.put(5L, analysis("f2f4", 7)), is(true));
+            assertThat(cache.get(2L), is(Optional.empty()));
+            assertThat(cache.get(5L).get().getBestMove(), is("f2f4"));
+        }
+    }
+
+    @Test
+    public void shouldDropTornSlotsAndBrokenHeaders() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("analysis");
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            cache.put(7L, analysis("e2e4", 10));
+            cache.put(8L, analysis("d2d4", 10));
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // the score of the slot of key 7, right after the 64-byte header
+            file.seek(64 + 7 * 64 + 8 + 4);
+            file.writeInt(99);
+        }
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            assertThat(cache.get(7L), is(Optional.empty()));
+            assertThat(cache.get(8L).isPresent(), is(true));
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(8);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        try (AnalysisCache cache = new AnalysisCache(path, 64)) {
+            assertThat(cache.get(8L), is(Optional.empty()));
+        }
+    }
+}
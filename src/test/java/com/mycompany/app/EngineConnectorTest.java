@@ -0,0 +1,95 @@
+package com.mycompany.app;
+
+import com.mycompany.app.uci.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EngineConnectorTest {
+    // Answers the few commands the client sends like a real engine would
+    private static final String FAKE_ENGINE = String.join("\n",
+        "#!/bin/sh",
+        "while read line; do",
+        "  case \"$line\" in",
+        "    uci) echo 'id name fake'; echo 'uciok' ;;",
+        "    isready) echo 'readyok' ;;",
+        "    stop) echo 'info depth 3 score cp 20 pv e7e5 g1f3'; echo 'bestmove e7e5 ponder g1f3' ;;",
+        "    quit) exit 0 ;;",
+        "  esac",
+        "done",
+        "");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EngineConnector engineConnector;
+
+    // Skips the test where shell scripts cannot run
+    static String writeFakeEngine(Path directory) throws IOException {
+        assumeTrue(Files.isExecutable(Path.of("/bin/sh")));
+
+        Path script = directory.resolve("engine.sh");
+
+        Files.writeString(script, FAKE_ENGINE);
+        assumeTrue(script.toFile().setExecutable(true));
+
+        return script.toString();
+    }
+
+    @Before
+    public void startEngine() throws IOException {
+        this.engineConnector = new EngineConnector(writeFakeEngine(folder.getRoot().toPath()));
+
+        assertThat(this.engineConnector.start(), is(true));
+    }
+
+    @Test
+    public void shouldReadResponsesWithoutAThreadPerCommand() throws IOException {
+        this.engineConnector.sendCommand(new UCI());
+
+        Position position = new Position(new MoveHistory("8/8/8/8/8/8/8/K1k5 w - - 0 1"));
+        int threads = Thread.activeCount();
+
+        for (int i = 0; i < 100; i++) {
+            this.engineConnector.sendCommand(new IsReady());
+            this.engineConnector.sendCommand(position);
+            this.engineConnector.sendCommand(new Go());
+
+            assertThat(this.engineConnector.sendCommand(new Stop()), is(Optional.of("e7e5")));
+        }
+
+        assertThat(Thread.activeCount(), is(lessThanOrEqualTo(threads)));
+    }
+
+    @Test
+    public void shouldPassOnTheMoveToPonderOn() throws IOException {
+        Go go = new Go(true);
+        Stop stop = new Stop();
+
+        assertThat(go.getCommand(), is("go ponder"));
+
+        this.engineConnector.sendCommand(go);
+        this.engineConnector.sendCommand(new PonderHit());
+
+        assertThat(this.engineConnector.sendCommand(stop), is(Optional.of("e7e5")));
+        assertThat(stop.getPonderMove(), is("g1f3"));
+        assertThat(stop.getInfo(), containsString("pv e7e5 g1f3"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnceTheEngineHasQuit() throws Exception {
+        this.engineConnector.sendCommand(new Quit());
+        this.engineConnector.sendCommand(new IsReady());
+    }
+}
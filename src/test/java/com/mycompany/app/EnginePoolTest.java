@@ -0,0 +1,62 @@
+package com.mycompany.app;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EnginePoolTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EnginePool pool(int size) throws IOException {
+        return new EnginePool(EngineConnectorTest.writeFakeEngine(folder.getRoot().toPath()), size);
+    }
+
+    @Test
+    public void shouldNotStartMoreEnginesThanCores() throws IOException {
+        try (EnginePool pool = pool(Integer.MAX_VALUE)) {
+            assertThat(pool.size(), is(Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    @Test
+    public void shouldLendEachEngineToOneGameAtATime() throws IOException {
+        try (EnginePool pool = pool(1)) {
+            EngineConnector engineConnector = pool.lease(1, TimeUnit.SECONDS);
+
+            assertThat(engineConnector.isHealthy(), is(true));
+
+            try {
+                pool.lease(100, TimeUnit.MILLISECONDS);
+                throw new AssertionError("The only engine was lent twice");
+            } catch (IOException e) {
+                assertThat(e.getMessage(), containsString("No engine free"));
+            }
+
+            pool.release(engineConnector);
+
+            assertThat(pool.lease(1, TimeUnit.SECONDS), is(sameInstance(engineConnector)));
+        }
+    }
+
+    @Test
+    public void shouldReplaceEnginesWhichStoppedAnswering() throws Exception {
+        try (EnginePool pool = pool(1)) {
+            EngineConnector engineConnector = pool.lease(1, TimeUnit.SECONDS);
+
+            engineConnector.stop();
+            pool.release(engineConnector);
+
+            EngineConnector replacement = pool.lease(1, TimeUnit.SECONDS);
+
+            assertThat(replacement, is(not(sameInstance(engineConnector))));
+            assertThat(replacement.isHealthy(), is(true));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycompany.app;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class ReplyCacheTest {
+    private static final String GO = "go";
+
+    @Test
+    public void shouldAnswerOnlyTheSamePositionLevelAndLimits() {
+        ReplyCache cache = new ReplyCache(8);
+
+        cache.put(1L, 5, GO, "e2e4");
+
+        assertThat(cache.get(1L, 5, GO), is(Optional.of("e2e4")));
+        assertThat(cache.get(2L, 5, GO), is(Optional.empty()));
+        assertThat(cache.get(1L, 6, GO), is(Optional.empty()));
+        assertThat(cache.get(1L, 5, "go depth 10"), is(Optional.empty()));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(3L));
+    }
+
+    @Test
+    public void shouldEvictOnlyWhenFull() {
+        ReplyCache cache = new ReplyCache(4);
+
+        for (long key = 0; key < 4; key++) {
+            cache.put(key, 0, GO, "e2e4");
+        }
+
+        // a new reply for a cached position replaces the old one
+        cache.put(0L, 0, GO, "d2d4");
+
+        assertThat(cache.size(), is(4));
+        assertThat(cache.getEvictions(), is(0L));
+        assertThat(cache.get(0L, 0, GO), is(Optional.of("d2d4")));
+
+        cache.put(4L, 0, GO, "e2e4");
+
+        assertThat(cache.size(), is(4));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void shouldGiveUsedRepliesASecondChance() {
+        ReplyCache cache = new ReplyCache(4);
+
+        for (long key = 0; key < 4; key++) {
+            cache.put(key, 0, GO, "e2e4");
+        }
+
+        cache.get(0L, 0, GO);
+        cache.get(2L, 0, GO);
+
+        cache.put(4L, 0, GO, "e2e4");
+        cache.put(5L, 0, GO, "e2e4");
+
+        assertThat(cache.get(0L, 0, GO).isPresent(), is(true));
+        assertThat(cache.get(2L, 0, GO).isPresent(), is(true));
+        assertThat(cache.get(1L, 0, GO).isPresent(), is(false));
+        assertThat(cache.get(3L, 0, GO).isPresent(), is(false));
+        assertThat(cache.getEvictions(), is(2L));
+    }
+
+    @Test
+    public void shouldReportItsCounters() {
+        ReplyCache cache = new ReplyCache(1);
+
+        cache.put(1L, 0, GO, "e2e4");
+        cache.get(1L, 0, GO);
+        cache.get(2L, 0, GO);
+        cache.put(2L, 0, GO, "d2d4");
+
+        assertThat(cache.toString(), is("Engine reply cache: 1 replies, 1 hits, 1 misses, 1 evictions"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.mycompany.book;
+
+import com.mycompany.app.book.PolyglotBook;
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.PolyglotKey;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PolyglotBookTest {
+    private static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String CASTLING_POSITION = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+    // Positions and their keys from the Polyglot format description
+    private static final String[][] PUBLISHED_KEYS = {
+        { START_POSITION, "463b96181691fc9c" },
+        { "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "823c9b50fd114196" },
+        { "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "0756b94461c50fb0" },
+        { "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", "662fafb965db29d4" },
+        { "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "22a48b5a8e47ff78" },
+        { "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3", "652a607ca3f242c1" },
+        { "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4", "00fdd303c946bdd9" },
+        { "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3", "3c8123ea7b067637" },
+        { "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4", "5c3f9b829b279560" }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Books made for the tests only need some table of random numbers, not the published one
+    private PolyglotKey polyglotKey() {
+        SplittableRandom random = new SplittableRandom(2024);
+        long[] numbers = new long[PolyglotKey.RANDOM_COUNT];
+
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = random.nextLong();
+        }
+
+        return new PolyglotKey(numbers);
+    }
+
+    private static int move(String move) {
+        return (move.charAt(0) - 'a') << 6 | (move.charAt(1) - '1') << 9 | (move.charAt(2) - 'a') | (move.charAt(3) - '1') << 3;
+    }
+
+    // Returns the given number in place of a random one
+    private static Random fixed(double value) {
+        return new Random() {
+            @Override
+            public double nextDouble() {
+                return value;
+            }
+        };
+    }
+
+    private Path writeBook(long[][] entries) throws IOException {
+        Arrays.sort(entries, (a, b) -> Long.compareUnsigned(a[0], b[0]));
+        ByteBuffer buffer = ByteBuffer.allocate(entries.length * 16);
+
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short)entry[1]).putShort((short)entry[2]).putInt(0);
+        }
+
+        Path path = folder.newFile("book.bin").toPath();
+        Files.write(path, buffer.array());
+
+        return path;
+    }
+
+    @Test
+    public void shouldPickBookMovesByWeight() throws IOException {
+        PolyglotKey polyglotKey = polyglotKey();
+        long start = polyglotKey.of(new Chessboard(START_POSITION));
+        long castling = polyglotKey.of(new Chessboard(CASTLING_POSITION));
+
+        Path path = writeBook(new long[][]{
+            { start, move("e2e4"), 3 },
+            { start, move("d2d4"), 1 },
+            { start, move("a2a3"), 0 },
+            { castling, move("e1h1"), 1 },
+            { start ^ 1, move("g1f3"), 5 },
+        });
+
+        PolyglotBook book = new PolyglotBook(path, polyglotKey);
+        Chessboard chessboard = new Chessboard(START_POSITION);
+
+        assertThat(book.pickMove(chessboard, fixed(0.0)), is("e2e4"));
+        assertThat(book.pickMove(chessboard, fixed(0.74)), is("e2e4"));
+        assertThat(book.pickMove(chessboard, fixed(0.76)), is("d2d4"));
+        assertThat("King takes rook stands for castling", book.pickMove(new Chessboard(CASTLING_POSITION), fixed(0.5)), is("e1g1"));
+        assertThat(book.pickMove(new Chessboard("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), fixed(0.5)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReadRandomTableInHexadecimal() throws IOException {
+        StringBuilder table = new StringBuilder();
+
+        for (int i = 0; i < PolyglotKey.RANDOM_COUNT; i++) {
+            table.append("U64(0x").append(Long.toHexString(i * 0x9E3779B97F4A7C15L)).append("),\n");
+        }
+
+        PolyglotKey polyglotKey = PolyglotKey.load(new ByteArrayInputStream(table.toString().getBytes(StandardCharsets.US_ASCII)));
+
+        // on an empty board only the number for white to move, the last one, is left
+        assertThat(polyglotKey.of(new Chessboard("8/8/8/8/8/8/8/8 w - - 0 1")), is(780 * 0x9E3779B97F4A7C15L));
+
+        try {
+            PolyglotKey.load(new ByteArrayInputStream("0x1, 0x2".getBytes(StandardCharsets.US_ASCII)));
+            throw new AssertionError("Accepted a short table");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Expected 781 random numbers, found 2"));
+        }
+    }
+
+    @Test
+    public void shouldMatchThePublishedKeys() throws IOException {
+        PolyglotKey polyglotKey = PolyglotKey.standard();
+
+        for (String[] published : PUBLISHED_KEYS) {
+            assertThat(published[0], polyglotKey.of(new Chessboard(published[0])), is(Long.parseUnsignedLong(published[1], 16)));
+        }
+    }
+}
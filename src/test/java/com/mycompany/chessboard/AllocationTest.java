@@ -0,0 +1,65 @@
+package com.mycompany.chessboard;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.exceptions.IllegalMoveException;
+
+import com.mycompany.chessboard.categories.ChessLogic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+// Allocation regression benchmark: validating and playing a move must not create garbage,
+// in a process running many games GC pauses turn into move latency
+public class AllocationTest {
+    private static final int ITERATIONS = 100_000;
+
+    private long allocatedBytes(com.sun.management.ThreadMXBean threadMXBean) {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void playAndTakeBack(Chessboard board, String[] moves) throws IllegalMoveException {
+        for (String move : moves) {
+            board.updateChessboard(move);
+        }
+
+        for (int i = 0; i < moves.length; i++) {
+            board.unmakeMove();
+        }
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldNotAllocateWhenValidatingMoves() throws IllegalMoveException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+        // castling, capture, en passant, check and a promotion-free quiet move
+        String[] moves = new String[]{ "e1g1", "h3g2", "a2a4", "b4a3", "e5f7", "e8f7", "f3f6", "e7f6" };
+
+        // warm up, so that lazy initialization and JIT compilation are not measured
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            playAndTakeBack(board, moves);
+        }
+
+        long before = allocatedBytes(threadMXBean);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            playAndTakeBack(board, moves);
+        }
+
+        long allocated = allocatedBytes(threadMXBean) - before;
+
+        assertThat("Bytes allocated per validated move", allocated / ((long)ITERATIONS * moves.length), is(0L));
+    }
+}
@@ -0,0 +1,193 @@
+package com.mycompany.chessboard;
+
+import com.mycompany.app.chessboard.Bitbases;
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.EndgameResult;
+import com.mycompany.app.chessboard.GameState;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.PositionSnapshot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BitbasesTest {
+    private static Bitbases bitbases;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void generate() {
+        bitbases = Bitbases.generate(Runtime.getRuntime().availableProcessors());
+    }
+
+    private EndgameResult probe(String fen) {
+        return bitbases.probe(new Chessboard(fen));
+    }
+
+    @Test
+    public void shouldKnowTextbookEndings() {
+        // checkmate and stalemate with the queen
+        assertThat(probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"), is(EndgameResult.LOSS));
+        assertThat(probe("k7/8/1QK5/8/8/8/8/8 b - - 0 1"), is(EndgameResult.DRAW));
+        // a rook left hanging is taken
+        assertThat(probe("8/8/8/8/8/2k5/1R6/7K b - - 0 1"), is(EndgameResult.DRAW));
+        assertThat(probe("8/8/8/8/8/2k5/1R6/7K w - - 0 1"), is(EndgameResult.WIN));
+        // king on the sixth rank in front of its pawn wins whoever moves
+        assertThat(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"), is(EndgameResult.WIN));
+        assertThat(probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"), is(EndgameResult.LOSS));
+        // the defending king in front of the pawn holds
+        assertThat(probe("8/8/8/8/8/4k3/4P3/4K3 w - - 0 1"), is(EndgameResult.DRAW));
+        // a rook pawn with the defending king in the corner
+        assertThat(probe("k7/8/K7/P7/8/8/8/8 w - - 0 1"), is(EndgameResult.DRAW));
+        // the defending king is outside the square of the pawn
+        assertThat(probe("7k/8/8/8/8/8/P7/K7 w - - 0 1"), is(EndgameResult.WIN));
+        // bare kings are not in the tables
+        assertThat(probe("8/8/8/8/8/8/8/K1k5 w - - 0 1"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGiveTheSameResultsWithColorsSwapped() {
+        assertThat(probe("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"), is(EndgameResult.WIN));
+        assertThat(probe("8/8/8/8/4p3/4k3/8/4K3 w - - 0 1"), is(EndgameResult.LOSS));
+        assertThat(probe("8/8/8/8/8/8/8/r3K1k1 w - - 0 1"), is(EndgameResult.LOSS));
+    }
+
+    @Test
+    public void shouldWinEveryQueenAndRookPositionWithTheStrongSideToMove() {
+        for (char piece : new char[]{ 'Q', 'R' }) {
+            for (int strongKing = 0; strongKing < 64; strongKing++) {
+                for (int weakKing = 0; weakKing < 64; weakKing += 3) {
+                    for (int square = 0; square < 64; square += 5) {
+                        Chessboard chessboard = position(piece, strongKing, weakKing, square, true);
+
+                        if (chessboard == null || chessboard.findIllegality() != null) continue;
+
+                        assertThat(chessboard.toFen(), bitbases.probe(chessboard), is(EndgameResult.WIN));
+                    }
+                }
+            }
+        }
+    }
+
+    // Every result has to follow from the results of the moves played on the board
+    @Test
+    public void shouldAgreeWithTheMovesOfTheBoard() {
+        SplittableRandom random = new SplittableRandom(21);
+        int[] moves = new int[Move.MAX_MOVES];
+        int checked = 0;
+
+        while (checked < 5000) {
+            char piece = "QRP".charAt(checked % 3);
+            Chessboard chessboard = position(piece, random.nextInt(64), random.nextInt(64), random.nextInt(64), random.nextBoolean());
+
+            if (chessboard == null || chessboard.findIllegality() != null) continue;
+
+            EndgameResult expected = EndgameResult.LOSS;
+            int count = chessboard.generateLegalMoves(moves);
+
+            if (count == 0) {
+                expected = chessboard.getGameState() == GameState.CHECKMATE ? EndgameResult.LOSS : EndgameResult.DRAW;
+            }
+
+            for (int i = 0; i < count; i++) {
+                chessboard.makeMove(moves[i]);
+
+                EndgameResult after = bitbases.probe(chessboard);
+                EndgameResult result = after == null ? EndgameResult.DRAW : after.opposite();
+
+                if (result.compareTo(expected) < 0) expected = result;
+
+                chessboard.unmakeMove();
+            }
+
+            assertThat(chessboard.toFen(), bitbases.probe(chessboard), is(expected));
+            checked++;
+        }
+    }
+
+    @Test
+    public void shouldDefendWithoutGivingUpTheDraw() {
+        Chessboard chessboard = new Chessboard("8/8/8/8/8/4k3/4P3/4K3 b - - 0 1");
+        int move = bitbases.pickMove(chessboard);
+
+        assertThat(move, is(not(Move.NONE)));
+
+        chessboard.makeMove(move);
+
+        assertThat(bitbases.probe(chessboard), is(EndgameResult.DRAW));
+        // won and lost positions need a search, to make progress or to hold out longest
+        assertThat(bitbases.pickMove(new Chessboard("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")), is(Move.NONE));
+        assertThat(bitbases.pickMove(new Chessboard("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")), is(Move.NONE));
+    }
+
+    @Test
+    public void shouldLeaveTheBoardOfTheCallerAlone() {
+        Chessboard chessboard = new Chessboard("8/8/8/8/8/4k3/4P3/4K3 b - - 0 1");
+
+        chessboard.setPublishingSnapshots(true);
+
+        PositionSnapshot snapshot = chessboard.getSnapshot();
+
+        assertThat(bitbases.pickMove(chessboard), is(not(Move.NONE)));
+        assertThat(chessboard.getSnapshot(), is(sameInstance(snapshot)));
+        assertThat(chessboard.toFen(), is("8/8/8/8/8/4k3/4P3/4K3 b - - 0 1"));
+    }
+
+    @Test
+    public void shouldSaveAndLoadTheTables() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Bitbases saved = Bitbases.load(directory, 1);
+        Bitbases loaded = Bitbases.load(directory, 1);
+
+        assertThat(directory.resolve("krk.bitbase").toFile().length(), is(16L + (1 << 19) / 4));
+        assertThat(loaded.probe(new Chessboard("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")), is(EndgameResult.LOSS));
+        assertThat(saved.probe(new Chessboard("k7/8/1QK5/8/8/8/8/8 b - - 0 1")), is(EndgameResult.DRAW));
+    }
+
+    // Null when two pieces share a square or a pawn stands on the first or last rank
+    private static Chessboard position(char piece, int strongKing, int weakKing, int square, boolean whiteToMove) {
+        if (strongKing == weakKing || square == strongKing || square == weakKing) return null;
+        if (piece == 'P' && (square < 8 || square >= 56)) return null;
+
+        char[] board = new char[64];
+
+        board[strongKing] = 'K';
+        board[weakKing] = 'k';
+        board[square] = piece;
+
+        StringBuilder fen = new StringBuilder();
+
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+
+            for (int col = 0; col < 8; col++) {
+                char ch = board[row * 8 + col];
+
+                if (ch == 0) {
+                    empty++;
+                    continue;
+                }
+
+                if (empty > 0) fen.append(empty);
+
+                fen.append(ch);
+                empty = 0;
+            }
+
+            if (empty > 0) fen.append(empty);
+            if (row > 0) fen.append('/');
+        }
+
+        return new Chessboard(fen.append(whiteToMove ? " w - - 0 1" : " b - - 0 1").toString());
+    }
+}
@@ -1,6 +1,10 @@
 package com.mycompany.chessboard;
 
 import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.GameState;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.MoveType;
+import com.mycompany.app.chessboard.PositionSnapshot;
 import com.mycompany.app.exceptions.IllegalMoveException;
 
 import com.mycompany.chessboard.categories.ExceptionHandling;
@@ -179,4 +183,183 @@ public class ChessboardTest {
         assertThat("White cannot castle kingside", board.getCastlingRights(), not(hasProperty("e1g1")));
         assertThat("White cannot castle queenside",  board.getCastlingRights(), not(hasProperty(move)));
     }
+
+    @Category(ChessLogic.class)
+    @Test(expected = IllegalMoveException.class)
+    public void shouldNotCastleWithAPromotion() throws IllegalMoveException {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/3BPN2/PPPP1PPP/RNBQK2R w KQkq - 0 1";
+
+        new Chessboard(fen).updateChessboard("e1g1q");
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldGenerateLegalMovesFromInitPosition() {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w AHah -";
+        Chessboard board = new Chessboard(fen);
+        int[] moves = new int[Move.MAX_MOVES];
+
+        assertThat(board.generateLegalMoves(moves), is(20));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldGenerateCastlingEnPassantAndPromotions() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/Pp2P3/2N2Q1p/1PPBBPPP/R3K2R b KQkq a3 0 1";
+        Chessboard board = new Chessboard(fen);
+        int[] moves = new int[Move.MAX_MOVES];
+
+        int count = board.generateLegalMoves(moves);
+        int castlings = 0;
+        int enPassants = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (Move.type(moves[i]) == MoveType.CASTLING) castlings++;
+            if (Move.type(moves[i]) == MoveType.EN_PASSANT) enPassants++;
+        }
+
+        assertThat("Black can castle both sides", castlings, is(2));
+        assertThat("Pawn on b4 can take on a3", enPassants, is(1));
+
+        board = new Chessboard("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        count = board.generateLegalMoves(moves);
+
+        assertThat("Three king moves and four promotions", count, is(7));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldRestorePositionWhenMovesAreTakenBack() throws IllegalMoveException {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+        Chessboard initial = new Chessboard(fen);
+        String[] moves = new String[]{ "e1g1", "h3g2", "a2a4", "b4a3", "e5f7", "e8f7" };
+
+        for (String move : moves) {
+            board.updateChessboard(move);
+        }
+
+        for (int i = 0; i < moves.length; i++) {
+            assertThat(board.unmakeMove(), is(true));
+        }
+
+        assertThat("Nothing left to take back", board.unmakeMove(), is(false));
+        assertThat(board.getBoard(), is(initial.getBoard()));
+        assertThat(board.getCastlingRights(), is(initial.getCastlingRights()));
+        assertThat(board.getSideToMove(), is(true));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldGiveTransposedPositionsTheSameKey() throws IllegalMoveException {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+        Chessboard transposed = new Chessboard(fen);
+
+        for (String move : new String[]{ "g1f3", "g8f6", "b1c3" }) {
+            board.updateChessboard(move);
+        }
+        for (String move : new String[]{ "b1c3", "g8f6", "g1f3" }) {
+            transposed.updateChessboard(move);
+        }
+
+        assertThat(board.getKey(), is(transposed.getKey()));
+        assertThat(board.getKey(), not(new Chessboard(fen).getKey()));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldDetectThreefoldRepetition() throws IllegalMoveException {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+        String[] moves = new String[]{ "g1f3", "g8f6", "f3g1", "f6g8" };
+
+        for (String move : moves) {
+            board.updateChessboard(move);
+        }
+
+        assertThat("Start position occurred twice", board.isThreefoldRepetition(), is(false));
+
+        for (String move : moves) {
+            board.updateChessboard(move);
+        }
+
+        assertThat(board.isThreefoldRepetition(), is(true));
+        assertThat(board.isGameOver(), is(true));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldApplyFiftyMoveRule() throws IllegalMoveException {
+        String fen = "8/8/4k3/8/8/3K4/8/7R w - - 99 80";
+        Chessboard board = new Chessboard(fen);
+
+        assertThat(board.getHalfmoveClock(), is(99));
+        assertThat(board.isGameOver(), is(false));
+
+        board.updateChessboard("h1h2");
+
+        assertThat(board.isFiftyMoveRule(), is(true));
+        assertThat(board.isGameOver(), is(true));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldKeepPinnedPiecesOnThePinLine() {
+        String fen = "k3r3/8/8/8/8/8/4B3/4K3 w - - 0 1";
+        Chessboard board = new Chessboard(fen);
+
+        try {
+            board.updateChessboard("e2d3");
+        } catch (IllegalMoveException e) {
+            assertThat(e.getMessage(), is("King is in check"));
+        }
+
+        assertThat("Pinned bishop has stayed on e2", board.getBoard()[1][4], is('B'));
+
+        // knight and rook both give check, capturing one of them is not enough
+        board = new Chessboard("4r2k/8/8/8/8/R4n2/3P4/4K3 w - - 0 1");
+        int[] moves = new int[Move.MAX_MOVES];
+
+        assertThat(board.isInCheck(), is(true));
+        assertThat("Only the king can move", board.generateLegalMoves(moves), is(3));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldClassifyFinishedGames() {
+        assertThat("Back rank mate", new Chessboard("4R1k1/5ppp/8/8/8/8/8/6K1 b - - 0 1").getGameState(), is(GameState.CHECKMATE));
+        assertThat("Bishop can block the check", new Chessboard("4R1k1/5ppp/8/8/1b6/8/8/6K1 b - - 0 1").getGameState(), is(GameState.ONGOING));
+        assertThat(new Chessboard("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getGameState(), is(GameState.STALEMATE));
+        assertThat(new Chessboard("8/8/4k3/8/8/3K4/8/5B2 w - - 0 1").getGameState(), is(GameState.INSUFFICIENT_MATERIAL));
+        assertThat("Bishops on both colors", new Chessboard("8/8/4k3/8/8/3K4/8/4BB2 w - - 0 1").getGameState(), is(GameState.ONGOING));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldPublishSnapshotsWhichNeverChange() throws IllegalMoveException {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+
+        assertThat(board.getSnapshot(), is(nullValue()));
+
+        board.setPublishingSnapshots(true);
+        board.updateChessboard("e2e4");
+
+        PositionSnapshot snapshot = board.getSnapshot();
+
+        board.updateChessboard("e7e5");
+
+        assertThat(Move.toString(snapshot.getLastMove()), is("e2e4"));
+        assertThat(snapshot.getPiece(3, 4), is('P'));
+        assertThat(snapshot.getPiece(4, 4), is('\0'));
+        assertThat(snapshot.getSideToMove(), is(false));
+        assertThat(snapshot.getEnPassant(), is("e4"));
+        assertThat(board.getSnapshot().getPiece(4, 4), is('p'));
+        assertThat(board.getSnapshot().getPly(), is(2));
+
+        board.unmakeMove();
+
+        assertThat(board.getSnapshot().getKey(), is(snapshot.getKey()));
+    }
 }
@@ -1,8 +1,12 @@
 package com.mycompany.chessboard;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import com.mycompany.app.chessboard.Chessboard;
 import com.mycompany.app.chessboard.Fen;
+import com.mycompany.app.exceptions.IllegalMoveException;
 
 import org.junit.Test;
 
@@ -14,4 +18,62 @@ public class FenTest {
 
         assertEquals(fen.get(), startPosition);
     }
+
+    @Test
+    public void shouldReadShredderAndStandardCastlingTheSameWay() {
+        Fen shredder = new Fen();
+        Fen standard = new Fen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+
+        assertTrue(shredder.canCastle(true, true));
+        assertTrue(shredder.canCastle(false, false));
+        assertEquals(standard, shredder);
+        assertEquals(1, shredder.getFullmoveNumber());
+    }
+
+    @Test
+    public void shouldParseAllFields() {
+        Fen fen = new Fen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 3 12");
+
+        assertTrue(fen.getSideToMove());
+        assertTrue(fen.canCastle(true, true));
+        assertFalse(fen.canCastle(true, false));
+        assertEquals('P', fen.getPiece(4, 4));
+        assertEquals(3, fen.getHalfmoveClock());
+        assertEquals(12, fen.getFullmoveNumber());
+    }
+
+    @Test
+    public void shouldRejectMalformedPositions() {
+        String[] malformed = new String[]{
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq -",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq -",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq -",
+        };
+
+        for (String position : malformed) {
+            try {
+                new Fen(position);
+                throw new AssertionError("Accepted " + position);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Invalid FEN"));
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteThePositionBack() throws IllegalMoveException {
+        String position = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Chessboard board = new Chessboard(position);
+
+        assertEquals(position, board.toFen());
+
+        board.updateChessboard("a2a4");
+        board.updateChessboard("h3g2");
+
+        assertEquals("r3k2r/p1ppqpb1/bn2pnp1/3PN3/Pp2P3/2N2Q2/1PPBBPpP/R3K2R w KQkq - 0 2", board.toFen());
+        assertEquals(board.toFen(), new Chessboard(board.toFen()).toFen());
+    }
 }
@@ -0,0 +1,37 @@
+package com.mycompany.chessboard;
+
+import static org.junit.Assert.assertEquals;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.MoveType;
+import com.mycompany.app.exceptions.IllegalMoveException;
+
+import org.junit.Test;
+
+public class MoveTest {
+    @Test
+    public void shouldParseAndPrintLongAlgebraicNotation() {
+        for (String move : new String[]{ "e2e4", "a7a8q", "h2g1n", "e1g1" }) {
+            assertEquals(move, Move.toString(Move.parse(move)));
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedMoves() {
+        for (String move : new String[]{ "a0b3", "c14b13", "e2e4k", "e2e2", "", "e7e8Q" }) {
+            assertEquals(Move.NONE, Move.parse(move));
+        }
+    }
+
+    @Test
+    public void shouldResolveMoveTypeWhenPlayed() throws IllegalMoveException {
+        Chessboard board = new Chessboard("r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+
+        int move = board.updateChessboard(Move.parse("b7a8r"));
+
+        assertEquals(MoveType.PROMOTION, Move.type(move));
+        assertEquals('r', Move.promotionChar(move));
+        assertEquals('R', board.getBoard()[7][0]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.mycompany.chessboard;
+
+import com.mycompany.app.chessboard.Chessboard;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.chessboard.ParallelPerft;
+import com.mycompany.app.chessboard.Perft;
+
+import com.mycompany.chessboard.categories.ChessLogic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+public class PerftTest {
+    private long perft(String fen, int depth) {
+        return new Perft(depth).perft(new Chessboard(fen), depth);
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldCountNodesFromInitPosition() {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+        assertThat(perft(fen, 4), is(197281L));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldCountNodesWithCastlingAndEnPassant() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+        assertThat(perft(fen, 3), is(97862L));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldCountNodesWithDiscoveredChecksOnEnPassant() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+        assertThat(perft(fen, 4), is(43238L));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldCountNodesWithPromotions() {
+        String fen = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+        assertThat(perft(fen, 3), is(9467L));
+
+        fen = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+        assertThat(perft(fen, 3), is(62379L));
+    }
+
+    @Category(ChessLogic.class)
+    @Test
+    public void shouldCountTheSameNodesInParallel() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Chessboard board = new Chessboard(fen);
+
+        try (ParallelPerft perft = new ParallelPerft(4, 0)) {
+            assertThat(perft.perft(board, 4), is(4085603L));
+        }
+
+        try (ParallelPerft perft = new ParallelPerft(4, 16)) {
+            int[] moves = new int[Move.MAX_MOVES];
+            long[] counts = new long[Move.MAX_MOVES];
+            int[] expectedMoves = new int[Move.MAX_MOVES];
+            long[] expectedCounts = new long[Move.MAX_MOVES];
+
+            int count = perft.divide(board, 4, moves, counts);
+
+            assertThat(new Perft(4).divide(board, 4, expectedMoves, expectedCounts), is(count));
+
+            for (int i = 0; i < count; i++) {
+                assertThat(moves[i], is(expectedMoves[i]));
+                assertThat(Move.toString(moves[i]), counts[i], is(expectedCounts[i]));
+            }
+        }
+    }
+}
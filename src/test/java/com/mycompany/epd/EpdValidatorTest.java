@@ -0,0 +1,46 @@
+package com.mycompany.epd;
+
+import com.mycompany.app.epd.EpdReport;
+import com.mycompany.app.epd.EpdValidator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EpdValidatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReportMalformedLinesAndIllegalPositions() throws IOException {
+        String positions = String.join("\n",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - bm e4; id \"start\";",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq -",
+            "4k3/4R3/8/8/8/8/8/4K3 w - -",
+            "4k3/8/8/8/8/8/8/4K2R w KQ - 0 1\r",
+            "8/8/8/8/8/8/8/4K3 w - -");
+        Path file = folder.newFile("positions.epd").toPath();
+
+        Files.write(file, positions.getBytes(StandardCharsets.US_ASCII));
+
+        EpdReport report = new EpdValidator(2, 10).validate(file);
+
+        assertThat(report.getPositions(), is(6L));
+        assertThat(report.getMalformed(), is(1L));
+        assertThat(report.getIllegal(), is(3L));
+        assertThat(report.getProblems().get(0), startsWith("line 4: Invalid FEN"));
+        assertThat(report.getProblems().get(1), is("line 5: side not to move is in check"));
+        assertThat(report.getProblems().get(2), is("line 6: castling rights for a king or rook which has moved"));
+        assertThat(report.getProblems().get(3), is("line 7: each side should have exactly one king"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.mycompany.pgn;
+
+import com.mycompany.app.pgn.PgnGame;
+import com.mycompany.app.pgn.PgnReader;
+import com.mycompany.app.pgn.PgnReplayer;
+import com.mycompany.app.pgn.PgnReport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class PgnReplayerTest {
+    private static final String GAMES = String.join("\n",
+        "[Event \"Paris\"]",
+        "[White \"Paul Morphy\"]",
+        "[Black \"Duke Karl / Count Isouard\"]",
+        "[Result \"1-0\"]",
+        "",
+        "1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move} 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6",
+        "7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 (9... Qb4+ 10. Qxb4 Bxb4) 10. Nxb5 cxb5 11. Bxb5+ Nbd7",
+        "12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+! $1 Nxb8 17. Rd8# 1-0",
+        "",
+        "[Event \"Illegal\"]",
+        "",
+        "1. e4 e5 2. Ke3 *",
+        "",
+        "[Event \"Ambiguous\"]",
+        "[FEN \"4k3/8/8/8/8/8/8/N3K2N w - - 0 1\"]",
+        "",
+        "1.Kd2 Kd7 2.Ng3 Kd6 3.Nf5+ Kd5 4.Nb3 Kc4 5.Nd4 1/2-1/2",
+        "");
+
+    private ReadableByteChannel channel(String text) {
+        return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldReadHeadersAndMainLine() throws IOException {
+        PgnReader reader = new PgnReader(channel(GAMES));
+        PgnGame game = reader.next();
+
+        assertThat(game.getIndex(), is(1L));
+        assertThat(game.getHeader("Black"), is("Duke Karl / Count Isouard"));
+        assertThat(game.getMoves().size(), is(33));
+        assertThat(game.getMoves().get(16), is("Bg5"));
+        assertThat(game.getMoves().get(17), is("b5"));
+        assertThat(reader.next().getMoves(), contains("e4", "e5", "Ke3"));
+        assertThat(reader.next().getHeader("FEN"), is("4k3/8/8/8/8/8/8/N3K2N w - - 0 1"));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReportGamesWithIllegalMoves() throws IOException {
+        PgnReport report = new PgnReplayer(2, 10).replay(channel(GAMES));
+
+        assertThat(report.getGames(), is(3L));
+        assertThat(report.getFailed(), is(2L));
+        assertThat(report.getProblems(), contains(
+            "game 2, ply 3 (Ke3): Move not recognized",
+            "game 3, ply 9 (Nd4): Move not recognized"
+        ));
+        assertThat(report.getPlies(), is(33L + 2L + 8L));
+    }
+}
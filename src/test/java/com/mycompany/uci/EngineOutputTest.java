@@ -0,0 +1,46 @@
+package com.mycompany.uci;
+
+import com.mycompany.app.uci.EngineOutput;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class EngineOutputTest {
+    @Test
+    public void shouldDropTheOldestLinesWhenFull() throws IOException {
+        EngineOutput output = new EngineOutput(2);
+
+        output.add("info depth 1");
+        output.add("info depth 2");
+        output.add("bestmove e2e4");
+
+        assertThat(output.next(0), is("info depth 2"));
+        assertThat(output.next(0), is("bestmove e2e4"));
+    }
+
+    @Test
+    public void shouldClearStaleLinesButNotTheEnd() throws IOException {
+        EngineOutput output = new EngineOutput();
+
+        output.add("bestmove e2e4");
+        output.clear();
+        output.add("readyok");
+
+        assertThat(output.next(0), is("readyok"));
+
+        output.add("bestmove d2d4");
+        output.close();
+        output.clear();
+
+        try {
+            output.next(0);
+            throw new AssertionError("Read past the end of the output");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("The engine closed its output"));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mycompany.uci;
+
+import com.mycompany.app.chessboard.Fen;
+import com.mycompany.app.chessboard.Move;
+import com.mycompany.app.uci.MoveHistory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class MoveHistoryTest {
+    private static final String FEN = "8/P7/8/8/8/8/8/K1k5 w - - 0 1";
+
+    @Test
+    public void shouldSendTheStandardPositionByName() {
+        MoveHistory history = new MoveHistory(Fen.START_POSITION);
+
+        assertThat(history.toString(), is("position startpos"));
+
+        history.add(Move.parse("e2e4"));
+        history.add(Move.parse("e7e5"));
+
+        assertThat(history.toString(), is("position startpos moves e2e4 e7e5"));
+    }
+
+    @Test
+    public void shouldCutTakenBackMovesOff() {
+        MoveHistory history = new MoveHistory(FEN);
+
+        history.add(Move.parse("a7a8q"));
+
+        assertThat(history.toString(), is("position fen " + FEN + " moves a7a8q"));
+
+        history.add(Move.parse("c1d2"));
+
+        assertThat(history.removeLast(), is(true));
+        assertThat(history.toString(), is("position fen " + FEN + " moves a7a8q"));
+        assertThat(history.removeLast(), is(true));
+        assertThat(history.toString(), is("position fen " + FEN));
+        assertThat(history.removeLast(), is(false));
+    }
+
+    @Test
+    public void shouldWriteLongGamesAsTheyGrow() throws IOException {
+        MoveHistory history = new MoveHistory(Fen.START_POSITION);
+        StringBuilder expected = new StringBuilder("position startpos moves");
+        String[] shuffle = new String[]{ "g1f3", "g8f6", "f3g1", "f6g8" };
+
+        for (int i = 0; i < 400; i++) {
+            history.add(Move.parse(shuffle[i % 4]));
+            expected.append(' ').append(shuffle[i % 4]);
+        }
+
+        StringWriter writer = new StringWriter();
+
+        history.writeTo(writer);
+
+        assertThat(history.size(), is(400));
+        assertThat(Move.toString(history.get(399)), is("f6g8"));
+        assertThat(writer.toString(), is(expected.toString()));
+    }
+}